@@ -0,0 +1,189 @@
+package study.querydsl.projection;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link QueryBeanProjection}이 붙은 DTO마다 setter/필드를 직접 호출하는 FactoryExpression을 생성한다.
+ * compileQuerydsl 태스크에서 JPAAnnotationProcessor와 함께 실행된다.
+ */
+@SupportedAnnotationTypes("study.querydsl.projection.QueryBeanProjection")
+public class BeanProjectionProcessor extends AbstractProcessor {
+
+    private static final String PREFIX = "Q";
+    private static final String SUFFIX = "Bean";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(QueryBeanProjection.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@QueryBeanProjection은 클래스에만 붙일 수 있습니다.");
+                continue;
+            }
+            TypeElement dto = (TypeElement) element;
+            List<Property> properties = properties(dto);
+            if (properties == null) {
+                continue;
+            }
+            try {
+                write(dto, properties);
+            } catch (IOException e) {
+                error(dto, "Q" + dto.getSimpleName() + SUFFIX + " 생성 실패: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private List<Property> properties(TypeElement dto) {
+        List<Property> properties = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(dto.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            if (modifiers.contains(Modifier.FINAL)) {
+                error(field, "@QueryBeanProjection DTO의 필드는 final일 수 없습니다.");
+                return null;
+            }
+            properties.add(new Property(field, boxedType(field.asType()), !modifiers.contains(Modifier.PRIVATE)));
+        }
+        return properties;
+    }
+
+    private String boxedType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private void write(TypeElement dto, List<Property> properties) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(dto);
+        String packageName = pkg.getQualifiedName().toString();
+        String dtoName = dto.getQualifiedName().toString();
+        String className = PREFIX + dto.getSimpleName() + SUFFIX;
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(packageName.isEmpty() ? className : packageName + "." + className, dto)
+                .openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("import com.querydsl.core.types.Expression;");
+            out.println("import com.querydsl.core.types.FactoryExpressionBase;");
+            out.println("import com.querydsl.core.types.Visitor;");
+            out.println();
+            out.println("import java.util.Arrays;");
+            out.println("import java.util.Collections;");
+            out.println("import java.util.List;");
+            out.println();
+            out.println("/**");
+            out.println(" * " + className + " is a Querydsl bean projection type for " + dto.getSimpleName());
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("public class " + className + " extends FactoryExpressionBase<" + dtoName + "> {");
+            out.println();
+            out.println("    private static final long serialVersionUID = 1L;");
+            out.println();
+            out.println("    private final List<Expression<?>> args;");
+            out.println();
+
+            out.print("    public " + className + "(");
+            for (int i = 0; i < properties.size(); i++) {
+                Property property = properties.get(i);
+                out.print((i > 0 ? ", " : "") + "Expression<? extends " + property.type + "> " + property.name);
+            }
+            out.println(") {");
+            out.println("        super(" + dtoName + ".class);");
+            out.print("        this.args = Collections.unmodifiableList(Arrays.<Expression<?>>asList(");
+            for (int i = 0; i < properties.size(); i++) {
+                out.print((i > 0 ? ", " : "") + properties.get(i).name);
+            }
+            out.println("));");
+            out.println("    }");
+            out.println();
+
+            out.println("    @Override");
+            out.println("    public List<Expression<?>> getArgs() {");
+            out.println("        return args;");
+            out.println("    }");
+            out.println();
+
+            out.println("    @Override");
+            out.println("    public " + dtoName + " newInstance(Object... a) {");
+            out.println("        " + dtoName + " dto = new " + dtoName + "();");
+            for (int i = 0; i < properties.size(); i++) {
+                Property property = properties.get(i);
+                String value = "(" + property.type + ") a[" + i + "]";
+                String assign = property.direct
+                        ? "dto." + property.name + " = " + value + ";"
+                        : "dto." + property.setter() + "(" + value + ");";
+                if (property.primitive) {
+                    // Projections.bean과 같이 null은 기본값을 그대로 둔다.
+                    out.println("        if (a[" + i + "] != null) {");
+                    out.println("            " + assign);
+                    out.println("        }");
+                } else {
+                    out.println("        " + assign);
+                }
+            }
+            out.println("        return dto;");
+            out.println("    }");
+            out.println();
+
+            out.println("    @Override");
+            out.println("    public <R, C> R accept(Visitor<R, C> v, C context) {");
+            out.println("        return v.visit(this, context);");
+            out.println("    }");
+            out.println();
+            out.println("}");
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class Property {
+
+        private final String name;
+        private final String type;
+        private final boolean primitive;
+        private final boolean direct;
+
+        private Property(VariableElement field, String type, boolean direct) {
+            this.name = field.getSimpleName().toString();
+            this.type = type;
+            this.primitive = field.asType().getKind().isPrimitive();
+            this.direct = direct;
+        }
+
+        private String setter() {
+            return "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+    }
+
+}
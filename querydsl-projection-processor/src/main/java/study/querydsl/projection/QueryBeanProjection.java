@@ -0,0 +1,23 @@
+package study.querydsl.projection;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 기본 생성자와 setter(또는 private 이 아닌 필드)로 값을 채우는 DTO에 붙인다.
+ * Lombok 보다 먼저 실행될 수 있으므로 setter는 존재 여부를 확인하지 않고 set{필드명} 규칙으로 호출한다.
+ * 컴파일 시점에 Q{DTO}Bean FactoryExpression이 생성되며, 생성자 인자는 DTO 필드 선언 순서를 따른다.
+ * 리플렉션을 쓰는 Projections.bean/fields와 달리 setter와 필드를 직접 호출한다.
+ * <pre>
+ * query.select(new QUserDtoBean(member.username, member.age)).from(member)
+ * </pre>
+ * 별칭(ExpressionUtils.as) 없이 위치로 매핑되므로 DTO 필드 이름이 엔티티와 달라도 된다.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface QueryBeanProjection {
+}
@@ -0,0 +1,65 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.support.DataGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 Spring 컨텍스트. 인메모리 H2를 사용하고 SQL 로그는 모두 끈다.
+ * H2는 테이블이 바뀌지 않았으면 같은 쿼리의 이전 결과를 그대로 돌려주므로(OPTIMIZE_REUSE_RESULTS) 이를 끄고 매번 실행한다.
+ */
+public final class BenchmarkContext implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static BenchmarkContext start(String databaseName, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--logging.level.org.hibernate.type=warn"
+        ));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+        return new BenchmarkContext(context);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * teams 개의 팀과 members 명의 회원을 JDBC 배치로 넣는다. 팀, 나이(1~100), 이름 모두 고르게 분포한다.
+     */
+    public void seed(int teams, int members) {
+        seed(DataGenerator.Spec.uniform(teams, members));
+    }
+
+    /**
+     * 팀 크기, 나이, 이름 접두어가 치우친 데이터는 DataGenerator.Spec.builder()로 만든다.
+     */
+    public void seed(DataGenerator.Spec spec) {
+        getBean(DataGenerator.class).generate(spec);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+}
@@ -0,0 +1,134 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.MemberCountCache;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.support.DataGenerator;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 크기, 나이, 이름 접두어가 치우친 운영 규모 데이터(DataGenerator 기본값)에서
+ * QuerydslBasicTest의 GROUP BY, 서브쿼리, 페이징 쿼리를 실행하는 비용을 측정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LargeTableQueryBenchmark {
+
+    private static final QMember memberSub = new QMember("memberSub");
+
+    @Param({"100000", "1000000"})
+    private int members;
+
+    private BenchmarkContext context;
+    private EntityManager em;
+    private JPAQueryFactory query;
+    private MemberQueryRepository memberQueryRepository;
+    private MemberCountCache memberCountCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("large");
+        context.seed(DataGenerator.Spec.builder().members(members).build());
+        memberQueryRepository = context.getBean(MemberQueryRepository.class);
+        memberCountCache = context.getBean(MemberCountCache.class);
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        query = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    /**
+     * 팀별 평균 나이 (QuerydslBasicTest.group)
+     */
+    @Benchmark
+    public List<Tuple> groupByTeam() {
+        return query
+                .select(team.name, member.age.avg())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .fetch();
+    }
+
+    /**
+     * 100번째로 큰 팀(10^6건에서 수백 명)에서 팀 평균 이상인 회원 수 (QuerydslBasicTest.subQueryGoe, 상관 서브쿼리)
+     * 외부 행마다 팀 평균을 다시 계산하므로 가장 큰 팀(10^6건 중 약 15%)으로는 한 번 실행에 수 분이 걸린다.
+     */
+    @Benchmark
+    public Long correlatedSubquery() {
+        return query
+                .select(member.count())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("team100"), member.age.goe(
+                        select(memberSub.age.avg())
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team))
+                ))
+                .fetchOne();
+    }
+
+    /**
+     * 최고령 회원 (QuerydslBasicTest.subQuery)
+     */
+    @Benchmark
+    public List<Member> maxAgeSubquery() {
+        em.clear();
+        return query
+                .selectFrom(member)
+                .where(member.age.eq(
+                        select(memberSub.age.max())
+                                .from(memberSub)
+                ))
+                .fetch();
+    }
+
+    /**
+     * 나이 범위(20~30대, 가장 몰린 구간) 검색의 깊은 페이지. count 캐시를 비워 매번 count 쿼리까지 실행한다.
+     */
+    @Benchmark
+    public Page<MemberTeamDto> deepSearchPage() {
+        memberCountCache.clear();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(25);
+        condition.setAgeLoe(35);
+        return memberQueryRepository.searchPage(condition, PageRequest.of(1_000, 20));
+    }
+
+}
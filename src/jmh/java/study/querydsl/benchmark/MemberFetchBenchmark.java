@@ -0,0 +1,122 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberDtoBean;
+import study.querydsl.dto.QUserDtoBean;
+import study.querydsl.dto.UserDto;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 인메모리 H2에 members 명을 넣고 전체 회원을 각 방식으로 조회하는 비용을 측정한다.
+ * 엔티티 조회는 매번 영속성 컨텍스트를 비워 hydration 비용이 그대로 드러나도록 한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MemberFetchBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int members;
+
+    private BenchmarkContext context;
+    private EntityManager em;
+    private JPAQueryFactory query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("fetch");
+        context.seed(100, members);
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        query = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> entity() {
+        em.clear();
+        return query.selectFrom(member).fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> memberBean() {
+        return query.select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> memberFields() {
+        return query.select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> memberConstructor() {
+        return query.select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> memberQueryProjection() {
+        return query.select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> memberBeanProjection() {
+        return query.select(new QMemberDtoBean(member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<UserDto> userFields() {
+        return query.select(Projections.fields(UserDto.class,
+                        member.username.as("name"), ExpressionUtils.as(member.age, "userage")))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<UserDto> userBeanProjection() {
+        return query.select(new QUserDtoBean(member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+}
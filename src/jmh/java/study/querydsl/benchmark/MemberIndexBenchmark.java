@@ -0,0 +1,110 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.repository.MemberIndex;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.support.DataGenerator;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 같은 조건을 MemberIndex와 DB(JPQL DTO 조회)로 처리하는 비용을 비교한다.
+ * 시작할 때 인덱스의 회원당 힙 사용량(추정치)을 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MemberIndexBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int members;
+
+    private BenchmarkContext context;
+    private EntityManager em;
+    private JPAQueryFactory query;
+    private MemberRepository memberRepository;
+
+    private Predicate usernameAndAge;
+    private Predicate ageRange;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("index", "app.member.index.enabled=true");
+        context.seed(DataGenerator.Spec.builder().members(members).build());
+        memberRepository = context.getBean(MemberRepository.class);
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        query = new JPAQueryFactory(em);
+
+        Tuple sample = query.select(member.username, member.age).from(member).where(member.id.eq(
+                query.select(member.id.min()).from(member).fetchOne()
+        )).fetchOne();
+        // QuerydslBasicTest.search, 가장 드문 나이 구간
+        usernameAndAge = member.username.eq(sample.get(member.username)).and(member.age.eq(sample.get(member.age)));
+        ageRange = member.age.between(78, 80);
+
+        MemberIndex index = context.getBean(MemberIndex.class);
+        System.out.printf("member index: %d members, %d bytes, %.1f bytes/member%n",
+                index.size(), index.bytes(), index.bytesPerMember());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberDto> indexUsernameAndAge() {
+        return memberRepository.findDtos(usernameAndAge);
+    }
+
+    @Benchmark
+    public List<MemberDto> dbUsernameAndAge() {
+        return fetchFromDb(usernameAndAge);
+    }
+
+    @Benchmark
+    public List<MemberDto> indexAgeRange() {
+        return memberRepository.findDtos(ageRange);
+    }
+
+    @Benchmark
+    public List<MemberDto> dbAgeRange() {
+        return fetchFromDb(ageRange);
+    }
+
+    private List<MemberDto> fetchFromDb(Predicate condition) {
+        return query
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .where(condition)
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+}
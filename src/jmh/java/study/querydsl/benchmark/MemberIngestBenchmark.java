@@ -0,0 +1,102 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberRecord;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.service.MemberIngestService;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * rows 명의 회원을 MemberIngestService(JDBC 배치 + chunk flush/clear)로 넣는 경우와
+ * 기존 방식처럼 한 트랜잭션에서 한 건씩 persist 하는 경우를 비교한다.
+ * 기존 방식은 JDBC 배치를 끈(batch_size=1) 별도 컨텍스트에서 실행해 IDENTITY와 같이 INSERT마다 왕복하게 한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MemberIngestBenchmark {
+
+    private static final int TEAMS = 100;
+
+    @Param({"100000"})
+    private int rows;
+
+    private BenchmarkContext batched;
+    private BenchmarkContext legacy;
+    private MemberIngestService memberIngestService;
+    private TransactionTemplate tx;
+    private EntityManager em;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        batched = BenchmarkContext.start("ingest");
+        legacy = BenchmarkContext.start("ingest-legacy", "spring.jpa.properties.hibernate.jdbc.batch_size=1");
+        memberIngestService = batched.getBean(MemberIngestService.class);
+        tx = legacy.getBean(TransactionTemplate.class);
+        em = legacy.getBean(EntityManager.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        for (BenchmarkContext context : new BenchmarkContext[]{batched, legacy}) {
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            jdbc.update("DELETE FROM MEMBER");
+            jdbc.update("DELETE FROM TEAM");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batched.close();
+        legacy.close();
+    }
+
+    @Benchmark
+    public long ingest() {
+        return memberIngestService.ingest(records());
+    }
+
+    @Benchmark
+    public long persistOneByOne() {
+        return tx.execute(status -> {
+            Team[] teams = new Team[TEAMS];
+            for (int i = 0; i < TEAMS; i++) {
+                teams[i] = new Team("team" + i);
+                em.persist(teams[i]);
+            }
+            records().forEach(record -> {
+                em.persist(new Member(record.getUsername(), record.getAge(),
+                        teams[Integer.parseInt(record.getTeamName().substring(4))]));
+            });
+            return (long) rows;
+        });
+    }
+
+    private Stream<MemberRecord> records() {
+        return IntStream.range(0, rows)
+                .mapToObj(i -> new MemberRecord("member" + i, i % 100, "team" + i % TEAMS));
+    }
+
+}
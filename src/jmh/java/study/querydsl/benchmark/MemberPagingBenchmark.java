@@ -0,0 +1,105 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.KeysetPage;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberKeysetSort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.repository.MemberQueryRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 같은 페이지를 OFFSET/LIMIT 방식과 Keyset 방식으로 읽는 비용을 비교한다.
+ * 100,000 페이지까지 존재하도록 (100,000 + 1) * PAGE_SIZE 명의 회원을 넣는다.
+ * H2는 같은 파라미터로 반복 실행한 쿼리의 결과를 재사용하므로 page, page + 1 두 페이지를 번갈아 읽는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberPagingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_PAGE = 100_000;
+
+    @Param({"1", "1000", "100000"})
+    private int page;
+
+    private BenchmarkContext context;
+    private EntityManager em;
+    private JPAQueryFactory query;
+    private MemberQueryRepository memberQueryRepository;
+    private final String[] cursors = new String[2];
+    private int turn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("paging");
+        context.seed(100, (MAX_PAGE + 1) * PAGE_SIZE);
+        memberQueryRepository = context.getBean(MemberQueryRepository.class);
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        query = new JPAQueryFactory(em);
+
+        // page 번째 페이지 직전 행까지 읽은 상태의 커서를 미리 만들어 둔다.
+        String cursor = null;
+        int remaining = (page - 1) * PAGE_SIZE;
+        while (remaining > 0) {
+            int size = Math.min(remaining, 10_000);
+            KeysetPage<MemberDto> previous = memberQueryRepository.findPageByKeyset(
+                    new MemberSearchCondition(), MemberKeysetSort.AGE, cursor, size);
+            cursor = previous.getNextCursor();
+            remaining -= size;
+        }
+        cursors[0] = cursor;
+        cursors[1] = memberQueryRepository.findPageByKeyset(
+                new MemberSearchCondition(), MemberKeysetSort.AGE, cursor, PAGE_SIZE).getNextCursor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberDto> offset() {
+        int target = page + (turn ^= 1);
+        return query
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .orderBy(member.age.asc(), member.id.asc())
+                .offset((long) (target - 1) * PAGE_SIZE)
+                .limit(PAGE_SIZE)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> keyset() {
+        return memberQueryRepository
+                .findPageByKeyset(new MemberSearchCondition(), MemberKeysetSort.AGE, cursors[turn ^= 1], PAGE_SIZE)
+                .getContent();
+    }
+
+}
@@ -0,0 +1,112 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberSnapshotExecutor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 같은 조건을 MemberSnapshotExecutor(메모리 평가)와 JPA로 처리하는 비용을 비교한다.
+ * 메모리 평가는 전체를 훑으므로 인덱스가 있는 인메모리 H2보다 회원 수에 더 민감하다.
+ * 실제 DB라면 여기에 네트워크 왕복이 더해진다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MemberSnapshotBenchmark {
+
+    @Param({"10000", "100000"})
+    private int members;
+
+    private BenchmarkContext context;
+    private EntityManager em;
+    private JPAQueryFactory query;
+    private MemberSnapshotExecutor executor;
+
+    private Predicate searchMember;
+    private Predicate teamAndAge;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("snapshot",
+                "app.member.snapshot.ttl=1h", "app.member.snapshot.max-size=" + members);
+        context.seed(100, members);
+        executor = context.getBean(MemberSnapshotExecutor.class);
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        query = new JPAQueryFactory(em);
+
+        // QuerydslBasicTest.searchMember1
+        BooleanBuilder builder = new BooleanBuilder();
+        builder.and(member.username.eq("member1"));
+        builder.and(member.age.eq(member1Age()));
+        searchMember = builder;
+        teamAndAge = team.name.eq("team1").and(member.age.between(20, 40));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> snapshotSearchMember() {
+        return executor.search(searchMember);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpaSearchMember() {
+        return fetchFromDb(searchMember);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> snapshotTeamAndAge() {
+        return executor.search(teamAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpaTeamAndAge() {
+        return fetchFromDb(teamAndAge);
+    }
+
+    private int member1Age() {
+        return query.select(member.age).from(member).where(member.username.eq("member1")).fetchOne();
+    }
+
+    private List<MemberTeamDto> fetchFromDb(Predicate condition) {
+        return query
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(condition)
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+}
@@ -0,0 +1,100 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberDtoBean;
+import study.querydsl.dto.QUserDtoBean;
+import study.querydsl.dto.UserDto;
+
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * DB 없이 한 행(Object[])을 DTO로 바꾸는 FactoryExpression.newInstance 비용만 측정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    private final Object[] row = {"member1", 10};
+
+    private final FactoryExpression<MemberDto> memberBean = Projections.bean(MemberDto.class,
+            member.username, member.age);
+    private final FactoryExpression<MemberDto> memberFields = Projections.fields(MemberDto.class,
+            member.username, member.age);
+    private final FactoryExpression<MemberDto> memberConstructor = Projections.constructor(MemberDto.class,
+            member.username, member.age);
+    private final FactoryExpression<MemberDto> memberQueryProjection = new QMemberDto(member.username, member.age);
+    private final FactoryExpression<MemberDto> memberBeanProjection = new QMemberDtoBean(member.username, member.age);
+
+    private final FactoryExpression<UserDto> userBean = Projections.bean(UserDto.class,
+            member.username.as("name"), ExpressionUtils.as(member.age, "userage"));
+    private final FactoryExpression<UserDto> userFields = Projections.fields(UserDto.class,
+            member.username.as("name"), ExpressionUtils.as(member.age, "userage"));
+    private final FactoryExpression<UserDto> userConstructor = Projections.constructor(UserDto.class,
+            member.username, member.age);
+    private final FactoryExpression<UserDto> userBeanProjection = new QUserDtoBean(member.username, member.age);
+
+    @Benchmark
+    public MemberDto memberBean() {
+        return memberBean.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberDto memberFields() {
+        return memberFields.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberDto memberConstructor() {
+        return memberConstructor.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberDto memberQueryProjection() {
+        return memberQueryProjection.newInstance(row);
+    }
+
+    @Benchmark
+    public MemberDto memberBeanProjection() {
+        return memberBeanProjection.newInstance(row);
+    }
+
+    @Benchmark
+    public UserDto userBean() {
+        return userBean.newInstance(row);
+    }
+
+    @Benchmark
+    public UserDto userFields() {
+        return userFields.newInstance(row);
+    }
+
+    @Benchmark
+    public UserDto userConstructor() {
+        return userConstructor.newInstance(row);
+    }
+
+    @Benchmark
+    public UserDto userBeanProjection() {
+        return userBeanProjection.newInstance(row);
+    }
+
+}
@@ -0,0 +1,98 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 쿼리를 실행하지 않고 JPAQueryFactory로 쿼리를 조립해 JPQL 문자열로 만드는 비용과,
+ * 그 JPQL로 Hibernate Query 객체를 만드는 비용(쿼리 플랜 캐시 적중 포함)을 측정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryConstructionBenchmark {
+
+    private BenchmarkContext context;
+    private EntityManager em;
+    private JPAQueryFactory query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("construction");
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        query = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public String simpleJpql() {
+        return query
+                .selectFrom(member)
+                .where(member.username.eq("member1"), member.age.between(10, 30))
+                .toString();
+    }
+
+    @Benchmark
+    public String dynamicJpql() {
+        return dynamicQuery().toString();
+    }
+
+    @Benchmark
+    public String joinProjectionJpql() {
+        return query
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamA"), member.age.goe(10))
+                .orderBy(member.age.desc(), member.username.asc().nullsLast())
+                .offset(10)
+                .limit(20)
+                .toString();
+    }
+
+    @Benchmark
+    public Query dynamicCreateQuery() {
+        return dynamicQuery().createQuery();
+    }
+
+    private JPAQuery<Member> dynamicQuery() {
+        BooleanBuilder builder = new BooleanBuilder();
+        builder.and(member.username.eq("member1"));
+        builder.and(member.age.eq(10));
+        return query
+                .selectFrom(member)
+                .where(builder);
+    }
+
+}
@@ -0,0 +1,124 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.support.DataGenerator;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberTeamAge.memberTeamAge;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 최연소/최고령 회원을 MemberTeamAge 뷰(윈도 함수)와 상관 서브쿼리로 찾는 비용을 비교한다.
+ * 상관 서브쿼리는 팀 크기의 제곱에 비례해 큰 팀이 있으면 끝나지 않으므로, 두 방식 모두 같은 SLICE_TEAMS 개 팀으로 좁혀 비교하고
+ * view 는 전체 팀도 잰다. 팀은 Zipf 순위 순으로 만들어지므로 SLICE_OFFSET 번째부터의 팀은 10^6건에서도 수백 명 정도다.
+ * 작은 팀 몇 개만 볼 때는 서브쿼리가 더 빠르다(뷰는 MEMBER 전체에 윈도 함수를 계산한다). 전체 팀은 뷰로만 끝난다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TeamAgeExtremesBenchmark {
+
+    private static final QMember memberSub = new QMember("memberSub");
+    private static final QMemberTeamDto TEAM_AGE_EXTREME = new QMemberTeamDto(
+            memberTeamAge.id, memberTeamAge.username, memberTeamAge.age, team.id, team.name);
+
+    private static final int SLICE_OFFSET = 200;
+    private static final int SLICE_TEAMS = 10;
+
+    @Param({"100000", "1000000"})
+    private int members;
+
+    private BenchmarkContext context;
+    private EntityManager em;
+    private JPAQueryFactory query;
+    private MemberRepository memberRepository;
+    private List<Long> slice;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("extremes");
+        context.seed(DataGenerator.Spec.builder().members(members).build());
+        memberRepository = context.getBean(MemberRepository.class);
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        query = new JPAQueryFactory(em);
+        slice = query.select(team.id).from(team).orderBy(team.id.asc()).offset(SLICE_OFFSET).limit(SLICE_TEAMS).fetch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    /**
+     * 전체 팀. 상관 서브쿼리로는 큰 팀 때문에 끝나지 않으므로 짝이 되는 벤치마크가 없다.
+     */
+    @Benchmark
+    public List<MemberTeamDto> view() {
+        return memberRepository.findTeamAgeExtremes();
+    }
+
+    /**
+     * 조인한 team 별칭(team.id)으로 거르면 H2가 뷰를 팀마다 다시 계산해 전체보다 느려지므로 뷰의 TEAM_ID 로 거른다.
+     */
+    @Benchmark
+    public List<MemberTeamDto> viewSlice() {
+        return query
+                .select(TEAM_AGE_EXTREME)
+                .from(memberTeamAge)
+                .join(memberTeamAge.team, team)
+                .where(memberTeamAge.team.id.in(slice),
+                        memberTeamAge.age.eq(memberTeamAge.teamMinAge).or(memberTeamAge.age.eq(memberTeamAge.teamMaxAge)))
+                .orderBy(team.id.asc(), memberTeamAge.age.asc(), memberTeamAge.id.asc())
+                .fetch();
+    }
+
+    /**
+     * subQueryTest1 을 팀별로 고친 형태. 회원마다 자기 팀의 최소/최대를 다시 구한다.
+     */
+    @Benchmark
+    public List<MemberTeamDto> correlatedSubquerySlice() {
+        return query
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .join(member.team, team)
+                .where(member.team.id.in(slice), member.age.eq(
+                        select(memberSub.age.min())
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team))
+                ).or(member.age.eq(
+                        select(memberSub.age.max())
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team))
+                )))
+                .orderBy(team.id.asc(), member.age.asc(), member.id.asc())
+                .fetch();
+    }
+
+}
@@ -0,0 +1,68 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * app.datasource.routing.enabled=true 이면 spring.datasource를 primary로, app.datasource.replica를 replica로 쓰는
+ * 라우팅 DataSource를 등록한다. 꺼져 있으면 스프링 부트 기본 DataSource 하나만 쓴다.
+ * p6spy가 커넥션을 얻자마자 메타데이터를 읽으므로, p6spy는 안쪽의 readWriteDataSource만 감싸고
+ * 바깥의 routingDataSource(LazyConnectionDataSourceProxy)는 감싸지 않는다. (decorator.datasource.exclude-beans)
+ *
+ * <pre>
+ * app.datasource:
+ *   routing.enabled: true
+ *   replica:
+ *     url: jdbc:...
+ *     username: ...
+ *     lag-query: SELECT EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())
+ *     max-lag: 5s
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @Primary
+    public DataSource routingDataSource(@Qualifier("readWriteDataSource") DataSource readWriteDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteDataSource);
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteDataSource(
+            DataSourceProperties properties,
+            @Value("${app.datasource.replica.url}") String replicaUrl,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String replicaPassword,
+            @Value("${app.datasource.replica.lag-query:}") String lagQuery,
+            @Value("${app.datasource.replica.max-lag:5s}") Duration maxLag,
+            @Value("${app.datasource.replica.lag-check-interval:1s}") Duration lagCheckInterval) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+
+        return new ReadWriteRoutingDataSource(primary, replica, lagQuery, maxLag, lagCheckInterval);
+    }
+
+}
@@ -0,0 +1,27 @@
+package study.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.support.MeteredJPAQueryFactory;
+import study.querydsl.support.StatementCounter;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+
+@Configuration
+public class QuerydslConfig {
+
+    /**
+     * EntityManager는 트랜잭션마다 실제 EntityManager를 찾아 주는 공유 프록시이므로 팩토리를 싱글톤으로 써도 된다.
+     */
+    @Bean
+    public JPAQueryFactory jpaQueryFactory(EntityManager em, MeterRegistry meterRegistry,
+                                           StatementCounter statementCounter,
+                                           @Value("${app.querydsl.slow-query-threshold:500ms}") Duration slowQueryThreshold) {
+        return new MeteredJPAQueryFactory(em, meterRegistry, statementCounter, slowQueryThreshold);
+    }
+
+}
@@ -0,0 +1,109 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 읽기 전용 트랜잭션은 replica로, 나머지는 primary로 보낸다.
+ * 트랜잭션의 readOnly 여부는 트랜잭션이 시작된 뒤에야 알 수 있으므로 반드시 LazyConnectionDataSourceProxy로 감싸서 써야 한다.
+ * lagQuery가 있으면 lagCheckInterval 마다 replica 지연(초)을 확인하고, maxLag를 넘거나 확인에 실패하면 primary로 읽는다.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    enum Route {PRIMARY, REPLICA}
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final long lagCheckIntervalNanos;
+
+    private final AtomicBoolean checking = new AtomicBoolean();
+    private volatile boolean replicaAvailable = true;
+    private volatile long lastCheckedAt;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      String lagQuery, Duration maxLag, Duration lagCheckInterval) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.lagCheckIntervalNanos = lagCheckInterval.toNanos();
+        this.lastCheckedAt = System.nanoTime() - lagCheckIntervalNanos;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && isReplicaAvailable()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    private boolean isReplicaAvailable() {
+        if (!StringUtils.hasText(lagQuery)) {
+            return true;
+        }
+        // 한 스레드만 확인하고, 나머지는 직전 결과를 쓴다.
+        if (System.nanoTime() - lastCheckedAt >= lagCheckIntervalNanos && checking.compareAndSet(false, true)) {
+            try {
+                replicaAvailable = replicaLagSeconds() <= maxLagSeconds;
+            } catch (Exception e) {
+                log.warn("replica lag check failed, reading from primary", e);
+                replicaAvailable = false;
+            } finally {
+                lastCheckedAt = System.nanoTime();
+                checking.set(false);
+            }
+        }
+        return replicaAvailable;
+    }
+
+    private double replicaLagSeconds() throws Exception {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            if (!rs.next()) {
+                throw new IllegalStateException("lag query returned no rows: " + lagQuery);
+            }
+            double lag = rs.getDouble(1);
+            return rs.wasNull() ? Double.MAX_VALUE : lag;
+        }
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(replica);
+        closeQuietly(primary);
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                log.warn("failed to close {}", dataSource, e);
+            }
+        }
+    }
+
+}
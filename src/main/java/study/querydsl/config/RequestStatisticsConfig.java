@@ -0,0 +1,50 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.stat.internal.StatisticsInitiator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.support.RequestStatisticsEndpoint;
+import study.querydsl.support.RequestStatisticsFactory;
+import study.querydsl.support.RequestStatisticsInterceptor;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 요청별 Hibernate 통계. app.hibernate.request-statistics.enabled=false 로 끌 수 있다.
+ * hibernate.generate_statistics 가 꺼져 있으면 아무것도 세지 않는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.hibernate.request-statistics.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestStatisticsConfig implements WebMvcConfigurer {
+
+    private final EntityManagerFactory emf;
+    private final RequestStatisticsEndpoint endpoint;
+
+    public RequestStatisticsConfig(EntityManagerFactory emf, RequestStatisticsEndpoint endpoint) {
+        this.emf = emf;
+        this.endpoint = endpoint;
+    }
+
+    @Bean
+    public static HibernatePropertiesCustomizer requestStatisticsFactory() {
+        return properties -> properties.put(StatisticsInitiator.STATS_BUILDER, new RequestStatisticsFactory());
+    }
+
+    @Bean
+    public static RequestStatisticsEndpoint requestStatisticsEndpoint(MeterRegistry meterRegistry) {
+        return new RequestStatisticsEndpoint(meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestStatisticsInterceptor(emf, endpoint))
+                .order(Ordered.LOWEST_PRECEDENCE);
+    }
+
+}
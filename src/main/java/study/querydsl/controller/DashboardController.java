@@ -0,0 +1,20 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberDashboardDto;
+import study.querydsl.service.MemberDashboardService;
+
+@RestController
+@RequiredArgsConstructor
+public class DashboardController {
+
+    private final MemberDashboardService memberDashboardService;
+
+    @GetMapping("/dashboard")
+    public MemberDashboardDto dashboard() {
+        return memberDashboardService.dashboard();
+    }
+
+}
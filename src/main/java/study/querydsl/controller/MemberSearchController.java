@@ -0,0 +1,67 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.service.MemberExportService;
+import study.querydsl.service.MemberStreamService;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberSearchController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final MemberExportService memberExportService;
+    private final MemberQueryRepository memberQueryRepository;
+    private final MemberStreamService memberStreamService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping("/members")
+    public Page<MemberTeamDto> search(MemberSearchCondition condition, Pageable pageable) {
+        return memberQueryRepository.searchPage(condition, pageable);
+    }
+
+    @GetMapping(value = "/members/export", produces = NDJSON)
+    public void export(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.export(condition, response.getOutputStream());
+    }
+
+    /**
+     * export와 같은 NDJSON이지만 요청 스레드를 붙잡지 않는다. (나이 순)
+     * Spring MVC가 한 원소를 쓰고 나서야 다음 원소를 요청하므로 클라이언트 속도만큼만 DB에서 읽는다.
+     * MVC는 원소마다 flush 하므로 회원 한 명이 아니라 chunk 하나를 NDJSON 여러 줄로 만들어 한 원소로 쓴다.
+     * 문자열 원소는 구분자 없이 그대로 이어 쓰이므로 줄마다 줄바꿈으로 끝내 chunk 경계에서도 줄이 나뉘게 한다.
+     */
+    @GetMapping(value = "/members/stream", produces = NDJSON)
+    public Flux<String> stream(MemberSearchCondition condition) {
+        ObjectWriter writer = objectMapper.writerFor(MemberDto.class);
+        return memberStreamService.streamChunks(condition).map(chunk -> {
+            StringBuilder lines = new StringBuilder();
+            for (MemberDto member : chunk) {
+                try {
+                    lines.append(writer.writeValueAsString(member)).append('\n');
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return lines.toString();
+        });
+    }
+
+}
@@ -0,0 +1,36 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * MemberBulkJobService 실행 결과. rows, chunks, elapsed 는 이번 실행분이고 totalRows 는 작업 전체(이전 실행 포함)다.
+ */
+@Getter
+@ToString
+public class BulkJobResult {
+
+    private final String jobId;
+    private final long rows;
+    private final long totalRows;
+    private final int chunks;
+    private final int resumedChunks;
+    private final Duration elapsed;
+
+    public BulkJobResult(String jobId, long rows, long totalRows, int chunks, int resumedChunks, Duration elapsed) {
+        this.jobId = jobId;
+        this.rows = rows;
+        this.totalRows = totalRows;
+        this.chunks = chunks;
+        this.resumedChunks = resumedChunks;
+        this.elapsed = elapsed;
+    }
+
+    public double getRowsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : rows * 1e9 / nanos;
+    }
+
+}
@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class MemberAgeStatsDto {
+
+    private long count;
+    private Double averageAge;
+    private Integer minAge;
+    private Integer maxAge;
+
+    @QueryProjection
+    public MemberAgeStatsDto(long count, Double averageAge, Integer minAge, Integer maxAge) {
+        this.count = count;
+        this.averageAge = averageAge;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+}
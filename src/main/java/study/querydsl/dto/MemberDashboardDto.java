@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class MemberDashboardDto {
+
+    private long memberCount;
+    private long teamCount;
+    private Integer minAge;
+    private Integer maxAge;
+    private Double averageAge;
+    private Map<String, Long> memberCountByTeam;
+
+    public MemberDashboardDto(long memberCount, long teamCount, Integer minAge, Integer maxAge, Double averageAge,
+                              Map<String, Long> memberCountByTeam) {
+        this.memberCount = memberCount;
+        this.teamCount = teamCount;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.averageAge = averageAge;
+        this.memberCountByTeam = memberCountByTeam;
+    }
+}
@@ -4,10 +4,12 @@ import com.querydsl.core.annotations.QueryProjection;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import study.querydsl.projection.QueryBeanProjection;
 
 @Data
 @ToString
 @NoArgsConstructor
+@QueryBeanProjection
 public class MemberDto {
 
     private String username;
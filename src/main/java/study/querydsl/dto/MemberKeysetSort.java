@@ -0,0 +1,9 @@
+package study.querydsl.dto;
+
+/**
+ * Keyset 페이징의 정렬 기준. 동일한 값이 있을 수 있으므로 항상 id를 두 번째 정렬 키로 사용한다.
+ */
+public enum MemberKeysetSort {
+    AGE,
+    USERNAME
+}
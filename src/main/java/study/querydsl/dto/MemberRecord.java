@@ -0,0 +1,19 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 대량 등록용 회원 한 건. teamName이 없으면 팀 없이 등록한다.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberRecord {
+
+    private String username;
+    private int age;
+    private String teamName;
+
+}
@@ -0,0 +1,19 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class TeamAgeDto {
+
+    private Long teamId;
+    private String teamName;
+    private Double averageAge;
+
+    @QueryProjection
+    public TeamAgeDto(Long teamId, String teamName, Double averageAge) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.averageAge = averageAge;
+    }
+}
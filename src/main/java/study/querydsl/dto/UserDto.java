@@ -3,10 +3,12 @@ package study.querydsl.dto;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import study.querydsl.projection.QueryBeanProjection;
 
 @Data
 @ToString
 @NoArgsConstructor
+@QueryBeanProjection
 public class UserDto {
 
     private String name;
@@ -8,10 +8,22 @@ import javax.persistence.*;
 @Setter(AccessLevel.PRIVATE)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+@NamedEntityGraph(name = Member.WITH_TEAM, attributeNodes = @NamedAttributeNode("team"))
+@Table(indexes = {
+        @Index(name = "IDX_MEMBER_AGE_ID", columnList = "AGE, MEMBER_ID"),
+        @Index(name = "IDX_MEMBER_USERNAME_ID", columnList = "USERNAME, MEMBER_ID"),
+        @Index(name = "IDX_MEMBER_TEAM_AGE", columnList = "TEAM_ID, AGE")
+})
 public class Member {
 
+    /**
+     * 회원 목록과 팀 이름을 함께 보여주는 화면용. 팀을 한 쿼리로 같이 읽는다.
+     */
+    public static final String WITH_TEAM = "Member.withTeam";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "MEMBER_SEQ_GENERATOR")
+    @SequenceGenerator(name = "MEMBER_SEQ_GENERATOR", sequenceName = "MEMBER_SEQ", allocationSize = 50)
     @Column(name = "MEMBER_ID")
     private Long id;
 
@@ -22,7 +34,7 @@ public class Member {
     private int age;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "TEAM_ID")
+    @JoinColumn(name = "TEAM_ID", foreignKey = @ForeignKey(name = "FK_MEMBER_TEAM"))
     private Team team;
 
     public Member(String username) {
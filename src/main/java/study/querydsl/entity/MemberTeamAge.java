@@ -0,0 +1,47 @@
+package study.querydsl.entity;
+
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import javax.persistence.*;
+
+/**
+ * 팀이 있는 회원과 그 팀의 최소/최대 나이. 조회 전용 뷰다.
+ * MEMBER를 한 번 읽어 윈도 함수로 팀별 값을 붙인다. 팀별 group by 결과를 MEMBER에 다시 조인하면
+ * H2가 팀 조건을 안으로 밀어 넣으면서 회원마다 집계를 다시 하므로 쓰지 않는다.
+ */
+@Entity
+@Immutable
+@Subselect("select m.MEMBER_ID, m.USERNAME, m.AGE, m.TEAM_ID," +
+        " min(m.AGE) over (partition by m.TEAM_ID) as TEAM_MIN_AGE," +
+        " max(m.AGE) over (partition by m.TEAM_ID) as TEAM_MAX_AGE" +
+        " from MEMBER m where m.TEAM_ID is not null")
+@Synchronize("MEMBER")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "username", "age", "teamMinAge", "teamMaxAge"})
+public class MemberTeamAge {
+
+    @Id
+    @Column(name = "MEMBER_ID")
+    private Long id;
+
+    @Column(name = "USERNAME")
+    private String username;
+
+    @Column(name = "AGE")
+    private int age;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "TEAM_ID")
+    private Team team;
+
+    @Column(name = "TEAM_MIN_AGE")
+    private int teamMinAge;
+
+    @Column(name = "TEAM_MAX_AGE")
+    private int teamMaxAge;
+
+}
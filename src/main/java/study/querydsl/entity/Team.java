@@ -1,6 +1,9 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -11,16 +14,28 @@ import java.util.List;
 @Setter(AccessLevel.PRIVATE)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
+@BatchSize(size = 100)
+@NamedEntityGraph(name = Team.WITH_MEMBERS, attributeNodes = @NamedAttributeNode("members"))
+@Table(uniqueConstraints = @UniqueConstraint(name = "UK_TEAM_NAME", columnNames = "NAME"))
 public class Team {
 
+    /**
+     * 팀과 소속 회원을 함께 보여주는 화면용.
+     */
+    public static final String WITH_MEMBERS = "Team.withMembers";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "TEAM_SEQ_GENERATOR")
+    @SequenceGenerator(name = "TEAM_SEQ_GENERATOR", sequenceName = "TEAM_SEQ", allocationSize = 50)
     @Column(name = "TEAM_ID")
     private Long id;
 
     @Column(name = "NAME")
     private String name;
 
+    @BatchSize(size = 100)
     @OneToMany(mappedBy = "team")
     List<Member> members = new ArrayList<>();
 
@@ -0,0 +1,36 @@
+package study.querydsl.entity;
+
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/**
+ * 팀별 회원 나이 집계. MEMBER 변경 시 TeamStatsMaintainer가 SQL로 직접 갱신하므로 엔티티로는 읽기만 한다.
+ * 팀을 저장할 때 행을 만들므로 회원이 없는 팀도 0명인 행이 있다.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+@Table(name = "TEAM_STATS")
+public class TeamStats {
+
+    @Id
+    @Column(name = "TEAM_ID")
+    private Long teamId;
+
+    @Column(name = "MEMBER_COUNT", nullable = false)
+    private long memberCount;
+
+    @Column(name = "AGE_SUM", nullable = false)
+    private long ageSum;
+
+    @Column(name = "MIN_AGE")
+    private Integer minAge;
+
+    @Column(name = "MAX_AGE")
+    private Integer maxAge;
+
+}
@@ -0,0 +1,129 @@
+package study.querydsl.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.LongType;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * BULK_JOB, BULK_JOB_CHUNK 체크포인트. 엔티티로 매핑하지 않고 SQL로 읽고 쓴다.
+ * recordChunk 는 chunk 를 실행한 트랜잭션에 참여해야 체크포인트와 변경이 함께 커밋된다.
+ */
+@Repository
+@Transactional
+public class BulkJobRepository {
+
+    private static final String JOB_TABLE = "BULK_JOB";
+    private static final String CHUNK_TABLE = "BULK_JOB_CHUNK";
+
+    private final EntityManager em;
+
+    public BulkJobRepository(EntityManager em) {
+        this.em = em;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Job {
+
+        private final String jobId;
+        private final String kind;
+        private final String description;
+        /**
+         * 대상 회원이 없으면 null.
+         */
+        private final Long minId;
+        private final Long maxId;
+        private final int chunkSize;
+        private final String status;
+
+    }
+
+    public Optional<Job> find(String jobId) {
+        List<?> rows = em.createNativeQuery("select KIND, DESCRIPTION, MIN_ID, MAX_ID, CHUNK_SIZE, STATUS "
+                        + "from BULK_JOB where JOB_ID = :jobId")
+                .setParameter("jobId", jobId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = (Object[]) rows.get(0);
+        return Optional.of(new Job(jobId, (String) row[0], (String) row[1], toLong(row[2]), toLong(row[3]),
+                ((Number) row[4]).intValue(), (String) row[5]));
+    }
+
+    public void create(Job job) {
+        nativeUpdate("insert into BULK_JOB (JOB_ID, KIND, DESCRIPTION, MIN_ID, MAX_ID, CHUNK_SIZE, STATUS, "
+                + "ROWS_AFFECTED, CREATED_AT, UPDATED_AT) "
+                + "values (:jobId, :kind, :description, :minId, :maxId, :chunkSize, :status, 0, "
+                + "current_timestamp, current_timestamp)", JOB_TABLE)
+                .setParameter("jobId", job.getJobId())
+                .setParameter("kind", job.getKind())
+                .setParameter("description", job.getDescription())
+                .setParameter("minId", job.getMinId(), LongType.INSTANCE)
+                .setParameter("maxId", job.getMaxId(), LongType.INSTANCE)
+                .setParameter("chunkSize", job.getChunkSize())
+                .setParameter("status", job.getStatus())
+                .executeUpdate();
+    }
+
+    public void recordChunk(String jobId, long chunkStart, long rows) {
+        nativeUpdate("insert into BULK_JOB_CHUNK (JOB_ID, CHUNK_START, ROWS_AFFECTED) "
+                + "values (:jobId, :chunkStart, :rows)", CHUNK_TABLE)
+                .setParameter("jobId", jobId)
+                .setParameter("chunkStart", chunkStart)
+                .setParameter("rows", rows)
+                .executeUpdate();
+    }
+
+    @Transactional(readOnly = true)
+    public Set<Long> doneChunks(String jobId) {
+        List<?> starts = em.createNativeQuery("select CHUNK_START from BULK_JOB_CHUNK where JOB_ID = :jobId")
+                .setParameter("jobId", jobId)
+                .getResultList();
+        Set<Long> done = new HashSet<>();
+        starts.forEach(start -> done.add(toLong(start)));
+        return done;
+    }
+
+    /**
+     * 끝난 chunk 의 행 수를 합쳐 작업 행에 기록한다.
+     *
+     * @return 작업 전체에서 변경된 행 수
+     */
+    public long finish(String jobId, String status) {
+        long rows = toLong(em.createNativeQuery("select coalesce(sum(ROWS_AFFECTED), 0) from BULK_JOB_CHUNK "
+                        + "where JOB_ID = :jobId")
+                .setParameter("jobId", jobId)
+                .getSingleResult());
+        nativeUpdate("update BULK_JOB set STATUS = :status, ROWS_AFFECTED = :rows, UPDATED_AT = current_timestamp "
+                + "where JOB_ID = :jobId", JOB_TABLE)
+                .setParameter("status", status)
+                .setParameter("rows", rows)
+                .setParameter("jobId", jobId)
+                .executeUpdate();
+        return rows;
+    }
+
+    /**
+     * 체크포인트 테이블만 바뀐다고 알려 주어 엔티티의 2차 캐시와 쿼리 캐시가 무효화되지 않게 한다.
+     */
+    private NativeQuery<?> nativeUpdate(String sql, String table) {
+        return em.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(table);
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+}
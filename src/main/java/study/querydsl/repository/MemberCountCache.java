@@ -0,0 +1,62 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 검색 조건별 COUNT 결과를 짧은 시간 동안 재사용한다.
+ * 페이지를 넘길 때마다 같은 조건의 COUNT가 반복되는 것을 막기 위한 것으로, TTL 동안은 변경 사항이 반영되지 않을 수 있다.
+ */
+@Component
+public class MemberCountCache {
+
+    private static final int MAX_ENTRIES = 1_000;
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    public MemberCountCache(@Value("${app.member.count-cache.ttl:10s}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier counter) {
+        String signature = condition.toString();
+        long now = System.nanoTime();
+
+        CachedCount cached = counts.get(signature);
+        if (cached != null && now - cached.loadedAt < ttlNanos) {
+            return cached.count;
+        }
+
+        long count = counter.getAsLong();
+        if (counts.size() >= MAX_ENTRIES) {
+            counts.values().removeIf(c -> now - c.loadedAt >= ttlNanos);
+        }
+        if (counts.size() < MAX_ENTRIES) {
+            counts.put(signature, new CachedCount(count, now));
+        }
+        return count;
+    }
+
+    public void clear() {
+        counts.clear();
+    }
+
+    private static final class CachedCount {
+
+        private final long count;
+        private final long loadedAt;
+
+        private CachedCount(long count, long loadedAt) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+}
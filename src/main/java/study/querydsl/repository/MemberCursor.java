@@ -0,0 +1,57 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import study.querydsl.dto.MemberKeysetSort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset 페이징 커서. 마지막으로 읽은 행의 (정렬 키, id)를 Base64로 감싸 클라이언트에게는 불투명한 토큰으로 전달한다.
+ */
+@Getter
+class MemberCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final MemberKeysetSort sort;
+    private final long id;
+    private final String key;
+
+    MemberCursor(MemberKeysetSort sort, long id, String key) {
+        this.sort = sort;
+        this.id = id;
+        this.key = key;
+    }
+
+    int ageKey() {
+        return Integer.parseInt(key);
+    }
+
+    String encode() {
+        String raw = sort.name() + SEPARATOR + id + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MemberCursor decode(String token, MemberKeysetSort expectedSort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다: " + token, e);
+        }
+
+        int first = raw.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : raw.indexOf(SEPARATOR, first + 1);
+        if (second < 0) {
+            throw new IllegalArgumentException("잘못된 커서입니다: " + token);
+        }
+
+        MemberKeysetSort sort = MemberKeysetSort.valueOf(raw.substring(0, first));
+        if (sort != expectedSort) {
+            throw new IllegalArgumentException("정렬 기준이 다른 커서입니다. expected=" + expectedSort + ", actual=" + sort);
+        }
+        return new MemberCursor(sort, Long.parseLong(raw.substring(first + 1, second)), raw.substring(second + 1));
+    }
+
+}
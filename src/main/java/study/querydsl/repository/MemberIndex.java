@@ -0,0 +1,811 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.entity.Member;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 커밋된 MEMBER를 힙에 열(column) 단위 기본형 배열로 들고 있는 읽기 모델. app.member.index.enabled=true 일 때만 만든다.
+ * MemberRepository.findDtos가 단순한 조건을 DB 없이 처리하는 데 쓴다.
+ *
+ * <ul>
+ *     <li>열: id(long[]), username(String[]), age(int[]), 팀 id(long[], 팀이 없으면 0). 삭제된 칸은 다시 쓴다.</li>
+ *     <li>id → 칸: long 키 open addressing 해시</li>
+ *     <li>username → 칸: 버킷 배열 + 칸마다 다음 칸을 가리키는 int[] (체이닝)</li>
+ *     <li>age: (age &lt;&lt; 32 | 칸)을 정렬해 둔 long[]. 범위 조회는 이진 탐색 두 번이다.</li>
+ * </ul>
+ * 조회 경로에는 엔티티도, Integer/Long 박싱도 없다. 결과 MemberDto만 만든다.
+ * <p>
+ * 엔티티 저장/변경/삭제는 Hibernate 커밋 후 이벤트로 반영한다. 이벤트가 없는 벌크 연산과 JDBC 적재는
+ * invalidate()로 인덱스를 버리고 MEMBER를 다시 읽는다. 다시 읽는 동안에는 DB로 조회하고, 그 사이 커밋된 이벤트는 모아 두었다가 적용한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.member.index.enabled", havingValue = "true")
+public class MemberIndex implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String LOAD_SQL = "select MEMBER_ID, USERNAME, AGE, TEAM_ID from MEMBER";
+
+    private final EntityManagerFactory emf;
+    private final JdbcTemplate jdbc;
+    private final Counter hits;
+    private final Counter fallbacks;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object reloadMonitor = new Object();
+    private Columns columns = new Columns(16);
+    private boolean ready;
+    /**
+     * 다시 읽는 동안에만 null 이 아니다.
+     */
+    private List<Change> buffered;
+
+    public MemberIndex(EntityManagerFactory emf, JdbcTemplate jdbc, MeterRegistry meterRegistry) {
+        this.emf = emf;
+        this.jdbc = jdbc;
+        this.hits = Counter.builder("member.index.lookups").tag("result", "hit").register(meterRegistry);
+        this.fallbacks = Counter.builder("member.index.lookups").tag("result", "fallback").register(meterRegistry);
+        Gauge.builder("member.index.size", this, MemberIndex::size).register(meterRegistry);
+        Gauge.builder("member.index.bytes", this, MemberIndex::bytes).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("member.index.bytes.per.member", this, MemberIndex::bytesPerMember)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * 조건에 맞는 회원을 id 순으로 돌려준다. 인덱스로 처리할 수 없으면 null.
+     * member.username, member.age, member.id, member.team.id 의 eq 와 member.age 범위(gt, goe, lt, loe, between)를
+     * and 로 묶은 조건만 처리한다. 인덱스에는 커밋된 데이터만 있으므로 쓰기 트랜잭션 안에서는 쓰지 않는다.
+     */
+    public List<MemberDto> find(Predicate condition) {
+        Lookup lookup = inWriteTransaction() ? null : Lookup.of(condition);
+        List<MemberDto> result = null;
+        if (lookup != null) {
+            lock.readLock().lock();
+            try {
+                if (ready) {
+                    result = columns.find(lookup);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        (result != null ? hits : fallbacks).increment();
+        return result;
+    }
+
+    /**
+     * MEMBER 전체를 다시 읽는다. 애플리케이션이 뜰 때 한 번 읽는다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        synchronized (reloadMonitor) {
+            lock.writeLock().lock();
+            try {
+                ready = false;
+                buffered = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long start = System.nanoTime();
+            Columns loaded = new Columns(1_024);
+            try {
+                jdbc.query(LOAD_SQL, rs -> {
+                    // TEAM_ID 가 null 이면 getLong 은 0 을 돌려준다.
+                    loaded.append(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getLong(4));
+                });
+                loaded.sortAges();
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    buffered = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                buffered.forEach(change -> change.applyTo(loaded));
+                buffered = null;
+                columns = loaded;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("member index loaded {} members, {} bytes ({} bytes/member) in {}ms", loaded.size,
+                    loaded.bytes(), Math.round(bytesPerMember()), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * 엔티티 이벤트 없이 MEMBER를 바꾼 뒤(벌크 update/delete, JDBC 적재) 호출한다.
+     * 트랜잭션 안이면 커밋 직전부터 인덱스를 쓰지 않고, 트랜잭션이 끝난 뒤 다시 읽는다.
+     */
+    public void invalidate() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reload();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                markStale();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED || !isReady()) {
+                    reload();
+                }
+            }
+        });
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 배열과 username 문자열이 차지하는 힙 크기 추정치. 압축 참조(compressed oops)와 Latin-1 문자열 기준이다.
+     */
+    public long bytes() {
+        lock.readLock().lock();
+        try {
+            return columns.bytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double bytesPerMember() {
+        lock.readLock().lock();
+        try {
+            return columns.size == 0 ? 0 : (double) columns.bytes() / columns.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            apply(put((Member) event.getEntity()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            apply(put((Member) event.getEntity()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            apply(new Change((Long) event.getId(), null, 0, 0, true));
+        }
+    }
+
+    /**
+     * 롤백된 변경은 인덱스에 반영한 적이 없으므로 할 일이 없다.
+     */
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass() == Member.class;
+    }
+
+    /**
+     * 오타가 있는 예전 이름. 인터페이스에 추상 메서드로 남아 있을 뿐 Hibernate는 위 메서드를 부른다.
+     */
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private Change put(Member m) {
+        // 팀 프록시를 초기화하지 않고 id만 읽는다.
+        Object teamId = m.getTeam() != null ? emf.getPersistenceUnitUtil().getIdentifier(m.getTeam()) : null;
+        return new Change(m.getId(), m.getUsername(), m.getAge(), teamId != null ? (Long) teamId : 0, false);
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (buffered != null) {
+                buffered.add(change);
+            } else if (ready) {
+                change.applyTo(columns);
+            }
+            // 무효화된 뒤 다시 읽기 전이면 버린다. 이미 커밋된 변경이므로 다시 읽을 때 DB에서 읽힌다.
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markStale() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static final class Change {
+
+        private final long id;
+        private final String username;
+        private final int age;
+        private final long teamId;
+        private final boolean deleted;
+
+        private Change(long id, String username, int age, long teamId, boolean deleted) {
+            this.id = id;
+            this.username = username;
+            this.age = age;
+            this.teamId = teamId;
+            this.deleted = deleted;
+        }
+
+        void applyTo(Columns columns) {
+            if (deleted) {
+                columns.remove(id);
+            } else {
+                columns.put(id, username, age, teamId);
+            }
+        }
+    }
+
+    /**
+     * Querydsl 조건을 인덱스가 처리할 수 있는 형태로 푼 것. id, teamId 의 0 은 조건 없음이다.
+     */
+    static final class Lookup {
+
+        private long id;
+        private String username;
+        private long teamId;
+        private int minAge = Integer.MIN_VALUE;
+        private int maxAge = Integer.MAX_VALUE;
+        private boolean empty;
+
+        /**
+         * @return 처리할 수 없는 조건이면 null
+         */
+        static Lookup of(Predicate condition) {
+            Lookup lookup = new Lookup();
+            return lookup.add(condition) ? lookup : null;
+        }
+
+        private boolean add(Expression<?> expression) {
+            if (expression == null) {
+                return true;
+            }
+            if (expression instanceof BooleanBuilder) {
+                return add(((BooleanBuilder) expression).getValue());
+            }
+            if (!(expression instanceof Operation)) {
+                return false;
+            }
+            Operation<?> operation = (Operation<?>) expression;
+            if (operation.getOperator() == Ops.AND) {
+                return add(operation.getArg(0)) && add(operation.getArg(1));
+            }
+            for (int i = 1; i < operation.getArgs().size(); i++) {
+                if (!(operation.getArg(i) instanceof Constant)) {
+                    return false;
+                }
+            }
+            Expression<?> path = operation.getArg(0);
+            if (operation.getOperator() == Ops.EQ) {
+                return eq(path, constant(operation, 1));
+            }
+            if (!member.age.equals(path)) {
+                return false;
+            }
+            if (operation.getOperator() == Ops.BETWEEN) {
+                ageRange(intValue(operation, 1), intValue(operation, 2));
+            } else if (operation.getOperator() == Ops.GOE) {
+                ageRange(intValue(operation, 1), Integer.MAX_VALUE);
+            } else if (operation.getOperator() == Ops.GT) {
+                int age = intValue(operation, 1);
+                ageRange(age == Integer.MAX_VALUE ? age : age + 1, Integer.MAX_VALUE);
+                empty |= age == Integer.MAX_VALUE;
+            } else if (operation.getOperator() == Ops.LOE) {
+                ageRange(Integer.MIN_VALUE, intValue(operation, 1));
+            } else if (operation.getOperator() == Ops.LT) {
+                int age = intValue(operation, 1);
+                ageRange(Integer.MIN_VALUE, age == Integer.MIN_VALUE ? age : age - 1);
+                empty |= age == Integer.MIN_VALUE;
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        private boolean eq(Expression<?> path, Object value) {
+            if (member.username.equals(path)) {
+                empty |= username != null && !username.equals(value);
+                username = (String) value;
+            } else if (member.age.equals(path)) {
+                int age = ((Number) value).intValue();
+                ageRange(age, age);
+            } else if (member.id.equals(path)) {
+                long value0 = ((Number) value).longValue();
+                empty |= id != 0 && id != value0;
+                id = value0;
+            } else if (member.team.id.equals(path)) {
+                long value0 = ((Number) value).longValue();
+                empty |= teamId != 0 && teamId != value0;
+                teamId = value0;
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        private void ageRange(int min, int max) {
+            minAge = Math.max(minAge, min);
+            maxAge = Math.min(maxAge, max);
+            empty |= minAge > maxAge;
+        }
+
+        private static Object constant(Operation<?> operation, int index) {
+            return ((Constant<?>) operation.getArg(index)).getConstant();
+        }
+
+        private static int intValue(Operation<?> operation, int index) {
+            return ((Number) constant(operation, index)).intValue();
+        }
+
+        boolean matches(Columns columns, int slot) {
+            return (id == 0 || columns.ids[slot] == id)
+                    && (username == null || username.equals(columns.usernames[slot]))
+                    && (teamId == 0 || columns.teamIds[slot] == teamId)
+                    && columns.ages[slot] >= minAge && columns.ages[slot] <= maxAge;
+        }
+
+        boolean hasAgeRange() {
+            return minAge != Integer.MIN_VALUE || maxAge != Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * 읽기 잠금 안에서만 읽고, 쓰기 잠금 안에서만 바꾼다.
+     */
+    static final class Columns {
+
+        private static final int FREE = -1;
+
+        private long[] ids;
+        private String[] usernames;
+        private int[] ages;
+        private long[] teamIds;
+        private int[] nextByUsername;
+        /**
+         * 한 번이라도 쓴 칸 수. 삭제된 칸(id 0)이 섞여 있다.
+         */
+        private int slots;
+        private int size;
+        private int[] freeSlots = new int[16];
+        private int freeCount;
+
+        private long[] idKeys;
+        private int[] idSlots;
+        private int[] usernameBuckets;
+        private long[] ageKeys;
+        private int ageCount;
+        private long stringBytes;
+
+        Columns(int capacity) {
+            ids = new long[capacity];
+            usernames = new String[capacity];
+            ages = new int[capacity];
+            teamIds = new long[capacity];
+            nextByUsername = new int[capacity];
+            ageKeys = new long[capacity];
+            idKeys = new long[tableSize(capacity * 2)];
+            idSlots = new int[idKeys.length];
+            usernameBuckets = newBuckets(tableSize(capacity));
+        }
+
+        /**
+         * 처음 읽을 때만 쓴다. age 인덱스는 정렬하지 않고 붙이므로 다 읽은 뒤 sortAges()를 불러야 한다.
+         */
+        void append(long id, String username, int age, long teamId) {
+            int slot = allocate();
+            write(slot, id, username, age, teamId);
+            ensureAgeCapacity();
+            ageKeys[ageCount++] = ageKey(age, slot);
+        }
+
+        void sortAges() {
+            Arrays.sort(ageKeys, 0, ageCount);
+        }
+
+        void put(long id, String username, int age, long teamId) {
+            int slot = slotOf(id);
+            if (slot == FREE) {
+                slot = allocate();
+                write(slot, id, username, age, teamId);
+                insertAge(age, slot);
+                return;
+            }
+            if (!Objects.equals(usernames[slot], username)) {
+                unlinkUsername(slot);
+                stringBytes += stringBytes(username) - stringBytes(usernames[slot]);
+                usernames[slot] = username;
+                linkUsername(slot);
+            }
+            if (ages[slot] != age) {
+                removeAge(ages[slot], slot);
+                ages[slot] = age;
+                insertAge(age, slot);
+            }
+            teamIds[slot] = teamId;
+        }
+
+        void remove(long id) {
+            int slot = removeId(id);
+            if (slot == FREE) {
+                return;
+            }
+            unlinkUsername(slot);
+            removeAge(ages[slot], slot);
+            stringBytes -= stringBytes(usernames[slot]);
+            usernames[slot] = null;
+            ids[slot] = 0;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            size--;
+        }
+
+        List<MemberDto> find(Lookup lookup) {
+            if (lookup.empty) {
+                return new ArrayList<>();
+            }
+            int[] matched = new int[16];
+            int count = 0;
+            if (lookup.id != 0) {
+                int slot = slotOf(lookup.id);
+                if (slot != FREE && lookup.matches(this, slot)) {
+                    matched[count++] = slot;
+                }
+            } else if (lookup.username != null) {
+                int bucket = lookup.username.hashCode() & (usernameBuckets.length - 1);
+                for (int slot = usernameBuckets[bucket]; slot != FREE; slot = nextByUsername[slot]) {
+                    if (lookup.matches(this, slot)) {
+                        matched = add(matched, count++, slot);
+                    }
+                }
+            } else if (lookup.hasAgeRange()) {
+                int from = lowerBound(ageKey(lookup.minAge, 0));
+                int to = lowerBound(lookup.maxAge == Integer.MAX_VALUE ? Long.MAX_VALUE : ageKey(lookup.maxAge + 1, 0));
+                for (int i = from; i < to; i++) {
+                    int slot = (int) ageKeys[i];
+                    if (lookup.matches(this, slot)) {
+                        matched = add(matched, count++, slot);
+                    }
+                }
+            } else {
+                for (int slot = 0; slot < slots; slot++) {
+                    if (ids[slot] != 0 && lookup.matches(this, slot)) {
+                        matched = add(matched, count++, slot);
+                    }
+                }
+            }
+            return toDtos(matched, count);
+        }
+
+        long bytes() {
+            // id, 팀 id, age, username 참조, username 체인
+            long columns = (long) ids.length * (8 + 8 + 4 + 4 + 4);
+            return columns
+                    + idKeys.length * 12L
+                    + usernameBuckets.length * 4L
+                    + ageKeys.length * 8L
+                    + freeSlots.length * 4L
+                    + stringBytes;
+        }
+
+        /**
+         * 찾은 칸을 id 순으로 정렬해 MemberDto로 만든다.
+         */
+        private List<MemberDto> toDtos(int[] matched, int count) {
+            long[] sortedIds = new long[count];
+            for (int i = 0; i < count; i++) {
+                sortedIds[i] = ids[matched[i]];
+            }
+            Arrays.sort(sortedIds);
+            List<MemberDto> result = new ArrayList<>(count);
+            for (long id : sortedIds) {
+                int slot = slotOf(id);
+                result.add(new MemberDto(usernames[slot], ages[slot]));
+            }
+            return result;
+        }
+
+        private void write(int slot, long id, String username, int age, long teamId) {
+            ids[slot] = id;
+            usernames[slot] = username;
+            ages[slot] = age;
+            teamIds[slot] = teamId;
+            stringBytes += stringBytes(username);
+            putId(id, slot);
+            linkUsername(slot);
+            size++;
+        }
+
+        private int allocate() {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            if (slots == ids.length) {
+                grow(ids.length + (ids.length >> 1) + 1);
+            }
+            return slots++;
+        }
+
+        private void grow(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamIds = Arrays.copyOf(teamIds, capacity);
+            nextByUsername = Arrays.copyOf(nextByUsername, capacity);
+            if (usernameBuckets.length < capacity) {
+                usernameBuckets = newBuckets(tableSize(capacity));
+                for (int slot = 0; slot < slots; slot++) {
+                    if (ids[slot] != 0) {
+                        linkUsername(slot);
+                    }
+                }
+            }
+        }
+
+        private void linkUsername(int slot) {
+            if (usernames[slot] == null) {
+                nextByUsername[slot] = FREE;
+                return;
+            }
+            int bucket = usernames[slot].hashCode() & (usernameBuckets.length - 1);
+            nextByUsername[slot] = usernameBuckets[bucket];
+            usernameBuckets[bucket] = slot;
+        }
+
+        private void unlinkUsername(int slot) {
+            if (usernames[slot] == null) {
+                return;
+            }
+            int bucket = usernames[slot].hashCode() & (usernameBuckets.length - 1);
+            if (usernameBuckets[bucket] == slot) {
+                usernameBuckets[bucket] = nextByUsername[slot];
+                return;
+            }
+            for (int prev = usernameBuckets[bucket]; prev != FREE; prev = nextByUsername[prev]) {
+                if (nextByUsername[prev] == slot) {
+                    nextByUsername[prev] = nextByUsername[slot];
+                    return;
+                }
+            }
+        }
+
+        private void insertAge(int age, int slot) {
+            long key = ageKey(age, slot);
+            int index = lowerBound(key);
+            ensureAgeCapacity();
+            System.arraycopy(ageKeys, index, ageKeys, index + 1, ageCount - index);
+            ageKeys[index] = key;
+            ageCount++;
+        }
+
+        private void removeAge(int age, int slot) {
+            int index = Arrays.binarySearch(ageKeys, 0, ageCount, ageKey(age, slot));
+            if (index >= 0) {
+                System.arraycopy(ageKeys, index + 1, ageKeys, index, ageCount - index - 1);
+                ageCount--;
+            }
+        }
+
+        private void ensureAgeCapacity() {
+            if (ageCount == ageKeys.length) {
+                ageKeys = Arrays.copyOf(ageKeys, ageKeys.length + (ageKeys.length >> 1) + 1);
+            }
+        }
+
+        private int lowerBound(long key) {
+            int index = Arrays.binarySearch(ageKeys, 0, ageCount, key);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        /**
+         * 칸 번호는 0 이상이므로 age 순, 같은 age 안에서는 칸 순으로 정렬된다.
+         */
+        private static long ageKey(int age, int slot) {
+            return ((long) age << 32) | slot;
+        }
+
+        private int slotOf(long id) {
+            int mask = idKeys.length - 1;
+            for (int i = idHash(id) & mask; idKeys[i] != 0; i = (i + 1) & mask) {
+                if (idKeys[i] == id) {
+                    return idSlots[i];
+                }
+            }
+            return FREE;
+        }
+
+        private void putId(long id, int slot) {
+            if ((size + 1) * 2 > idKeys.length) {
+                rehashIds(idKeys.length * 2);
+            }
+            int mask = idKeys.length - 1;
+            int i = idHash(id) & mask;
+            while (idKeys[i] != 0 && idKeys[i] != id) {
+                i = (i + 1) & mask;
+            }
+            idKeys[i] = id;
+            idSlots[i] = slot;
+        }
+
+        /**
+         * 선형 탐사이므로 지운 자리 뒤에 이어진 키를 당겨 와 탐색이 끊기지 않게 한다.
+         */
+        private int removeId(long id) {
+            int mask = idKeys.length - 1;
+            int i = idHash(id) & mask;
+            while (idKeys[i] != id) {
+                if (idKeys[i] == 0) {
+                    return FREE;
+                }
+                i = (i + 1) & mask;
+            }
+            int slot = idSlots[i];
+            int hole = i;
+            for (int j = (i + 1) & mask; idKeys[j] != 0; j = (j + 1) & mask) {
+                int home = idHash(idKeys[j]) & mask;
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    idKeys[hole] = idKeys[j];
+                    idSlots[hole] = idSlots[j];
+                    hole = j;
+                }
+            }
+            idKeys[hole] = 0;
+            return slot;
+        }
+
+        private void rehashIds(int tableSize) {
+            long[] oldKeys = idKeys;
+            int[] oldSlots = idSlots;
+            idKeys = new long[tableSize];
+            idSlots = new int[tableSize];
+            int mask = tableSize - 1;
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (oldKeys[k] != 0) {
+                    int i = idHash(oldKeys[k]) & mask;
+                    while (idKeys[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    idKeys[i] = oldKeys[k];
+                    idSlots[i] = oldSlots[k];
+                }
+            }
+        }
+
+        private static int idHash(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private static int[] add(int[] array, int index, int value) {
+            if (index == array.length) {
+                array = Arrays.copyOf(array, index * 2);
+            }
+            array[index] = value;
+            return array;
+        }
+
+        private static int[] newBuckets(int size) {
+            int[] buckets = new int[size];
+            Arrays.fill(buckets, FREE);
+            return buckets;
+        }
+
+        private static int tableSize(int minimum) {
+            return Integer.highestOneBit(Math.max(minimum - 1, 1)) << 1;
+        }
+
+        /**
+         * String 객체(24) + byte[] 헤더(16)와 내용, 8바이트 정렬.
+         */
+        private static long stringBytes(String value) {
+            return value == null ? 0 : 24 + ((16 + value.length() + 7) & ~7);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색 조건. Q 타입 경로(member, team)는 static 싱글톤이므로 조건을 만들 때 새로 만드는 것은 비교식뿐이다.
+ * 값이 비어 있으면 null 을 돌려주고, where()는 null 조건을 무시한다.
+ */
+public final class MemberPredicates {
+
+    private MemberPredicates() {
+    }
+
+    /**
+     * MemberSearchCondition의 네 조건. 팀 이름 조건은 team 별칭으로 조인되어 있어야 한다.
+     */
+    public static Predicate[] search(MemberSearchCondition condition) {
+        return new Predicate[]{
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    /**
+     * 팀 이름 조건이 있을 때만 팀을 조인한다. 불필요한 조인은 인덱스만으로 끝날 정렬/페이징을 망친다.
+     */
+    public static <T> JPAQuery<T> joinTeamIfNeeded(JPAQuery<T> query, MemberSearchCondition condition) {
+        return StringUtils.hasText(condition.getTeamName()) ? query.join(member.team, team) : query;
+    }
+
+    public static BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    public static BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    public static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    public static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+}
@@ -0,0 +1,170 @@
+package study.querydsl.repository;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.graph.GraphSemantic;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.KeysetPage;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberKeysetSort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.support.CountQueries;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberPredicates.ageGoe;
+import static study.querydsl.repository.MemberPredicates.ageLoe;
+import static study.querydsl.repository.MemberPredicates.joinTeamIfNeeded;
+import static study.querydsl.repository.MemberPredicates.teamNameEq;
+import static study.querydsl.repository.MemberPredicates.usernameEq;
+
+@Repository
+@Transactional(readOnly = true)
+public class MemberQueryRepository {
+
+    private final EntityManager em;
+
+    private final JPAQueryFactory query;
+
+    private final MemberCountCache countCache;
+
+    private final CountQueries countQueries;
+
+    public MemberQueryRepository(EntityManager em, JPAQueryFactory query, MemberCountCache countCache,
+                                 CountQueries countQueries) {
+        this.em = em;
+        this.query = query;
+        this.countCache = countCache;
+        this.countQueries = countQueries;
+    }
+
+    /**
+     * 조건에 맞는 회원을 ScrollableResults로 한 건씩 읽는다.
+     * 엔티티가 아닌 DTO로 조회하므로 영속성 컨텍스트에 쌓이지 않고, fetchSize 만큼만 JDBC 드라이버가 버퍼링한다.
+     * 반환된 Iterator는 반드시 close 해야 한다.
+     */
+    public CloseableIterator<MemberDto> iterate(MemberSearchCondition condition, int fetchSize) {
+        return joinTeamIfNeeded(query.select(new QMemberDto(member.username, member.age)).from(member), condition)
+                .where(MemberPredicates.search(condition))
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .iterate();
+    }
+
+    /**
+     * 조건에 맞는 회원을 팀과 함께 엔티티로 조회한다. (Member.withTeam 엔티티 그래프)
+     * 조회 결과에서 getTeam()을 호출해도 추가 쿼리가 나가지 않는다.
+     */
+    public List<Member> findWithTeam(MemberSearchCondition condition) {
+        return joinTeamIfNeeded(query.selectFrom(member), condition)
+                .where(MemberPredicates.search(condition))
+                .orderBy(member.id.asc())
+                .setHint(GraphSemantic.LOAD.getJpaHintName(), em.getEntityGraph(Member.WITH_TEAM))
+                .fetch();
+    }
+
+    /**
+     * Keyset(Seek) 방식 페이징. OFFSET 없이 마지막으로 읽은 (정렬 키, id) 다음부터 size 건을 읽으므로
+     * 몇 번째 페이지든 인덱스 탐색 한 번으로 끝나고, COUNT 쿼리도 실행하지 않는다.
+     * USERNAME 정렬은 이름이 없는 회원을 제외한다.
+     *
+     * @param cursor 이전 페이지의 nextCursor, 첫 페이지는 null
+     * @param size     1 이상
+     */
+    public KeysetPage<MemberDto> findPageByKeyset(MemberSearchCondition condition, MemberKeysetSort sort,
+                                                  String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        MemberCursor after = cursor != null ? MemberCursor.decode(cursor, sort) : null;
+
+        List<Tuple> rows = joinTeamIfNeeded(query.select(member.id, member.username, member.age).from(member), condition)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        sort == MemberKeysetSort.USERNAME ? member.username.isNotNull() : null,
+                        after(after)
+                )
+                .orderBy(keysetOrder(sort))
+                .limit(size + 1L)
+                .fetch();
+
+        boolean hasNext = rows.size() > size;
+        List<MemberDto> content = new ArrayList<>(Math.min(rows.size(), size));
+        for (int i = 0; i < rows.size() && i < size; i++) {
+            content.add(new MemberDto(rows.get(i).get(member.username), rows.get(i).get(member.age)));
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Tuple last = rows.get(size - 1);
+            String key = sort == MemberKeysetSort.AGE
+                    ? String.valueOf(last.get(member.age))
+                    : last.get(member.username);
+            nextCursor = new MemberCursor(sort, last.get(member.id), key).encode();
+        }
+        return new KeysetPage<>(content, nextCursor);
+    }
+
+    /**
+     * 조건에 맞는 회원을 페이지 단위로 조회한다.
+     * 첫 페이지나 마지막 페이지가 page size보다 작으면 COUNT 쿼리를 생략하고,
+     * 필요할 때도 정렬과 팀 조인(팀 이름 조건이 없을 때)을 뺀 COUNT 쿼리(CountQueries)를 따로 실행해 조건별로 잠시 캐시한다.
+     */
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<MemberTeamDto> contentQuery = query
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberPredicates.search(condition));
+
+        List<MemberTeamDto> content = contentQuery
+                .orderBy(member.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countCache.get(condition, () -> countQueries.count(contentQuery)));
+    }
+
+    private BooleanExpression after(MemberCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        // (key, id) > (:key, :id) 를 인덱스 범위 탐색이 가능하도록 key >= :key AND (key > :key OR id > :id) 로 풀어쓴다.
+        if (cursor.getSort() == MemberKeysetSort.AGE) {
+            return member.age.goe(cursor.ageKey())
+                    .and(member.age.gt(cursor.ageKey()).or(member.id.gt(cursor.getId())));
+        }
+        return member.username.goe(cursor.getKey())
+                .and(member.username.gt(cursor.getKey()).or(member.id.gt(cursor.getId())));
+    }
+
+    private OrderSpecifier<?>[] keysetOrder(MemberKeysetSort sort) {
+        if (sort == MemberKeysetSort.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.username.asc(), member.id.asc()};
+    }
+
+}
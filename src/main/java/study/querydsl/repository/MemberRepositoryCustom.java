@@ -0,0 +1,52 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberAgeStatsDto;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+
+import java.util.List;
+
+/**
+ * MemberRepository의 Querydsl 쿼리. 구현은 MemberRepositoryImpl.
+ * 대량 스트리밍, keyset 페이징, 캐시된 count 페이징은 MemberQueryRepository를 쓴다.
+ */
+public interface MemberRepositoryCustom {
+
+    /**
+     * 조건에 맞는 회원과 팀을 id 순으로 조회한다.
+     */
+    List<MemberTeamDto> search(MemberSearchCondition condition);
+
+    /**
+     * 조건에 맞는 회원을 MemberDto로 페이징한다. 정렬은 id, username, age 만 허용하고 id 로 동순위를 가른다.
+     */
+    Page<MemberDto> searchDtoPage(MemberSearchCondition condition, Pageable pageable);
+
+    /**
+     * 조건에 맞는 회원을 MemberDto로 id 순 조회한다.
+     * MemberIndex가 켜져 있고 인덱스로 처리할 수 있는 조건이면 DB를 거치지 않는다.
+     */
+    List<MemberDto> findDtos(Predicate condition);
+
+    /**
+     * 조건에 맞는 회원 수와 나이 평균/최소/최대. 회원이 없으면 count 0, 나머지는 null 이다.
+     */
+    MemberAgeStatsDto ageStats(MemberSearchCondition condition);
+
+    /**
+     * 나이가 가장 많은 회원들.
+     */
+    List<Member> findOldest();
+
+    /**
+     * 팀마다 가장 어린 회원과 가장 나이 많은 회원을 팀 id, 나이, 회원 id 순으로 조회한다. 동갑이면 모두 포함한다.
+     * 회원마다 팀 최소/최대를 다시 구하지 않고 MemberTeamAge 뷰(윈도 함수)로 MEMBER를 한 번만 읽는다.
+     */
+    List<MemberTeamDto> findTeamAgeExtremes();
+
+}
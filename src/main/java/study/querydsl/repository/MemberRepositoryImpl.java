@@ -0,0 +1,157 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAgeStatsDto;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberAgeStatsDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.support.CountQueries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberTeamAge.memberTeamAge;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberPredicates.joinTeamIfNeeded;
+
+@Transactional(readOnly = true)
+public class MemberRepositoryImpl implements MemberRepositoryCustom {
+
+    private static final QMember memberSub = new QMember("memberSub");
+
+    private static final QMemberTeamDto TEAM_AGE_EXTREME = new QMemberTeamDto(
+            memberTeamAge.id, memberTeamAge.username, memberTeamAge.age, team.id, team.name);
+    private static final QMemberDto MEMBER = new QMemberDto(member.username, member.age);
+    private static final QMemberAgeStatsDto AGE_STATS =
+            new QMemberAgeStatsDto(member.count(), member.age.avg(), member.age.min(), member.age.max());
+
+    private static final Map<String, ComparableExpressionBase<?>> SORTABLE = Map.of(
+            "id", member.id,
+            "username", member.username,
+            "age", member.age
+    );
+
+    private final JPAQueryFactory query;
+    private final CountQueries countQueries;
+    /**
+     * app.member.index.enabled=false 면 null.
+     */
+    private final MemberIndex memberIndex;
+    private final MemberSnapshotExecutor memberSnapshotExecutor;
+
+    public MemberRepositoryImpl(JPAQueryFactory query, CountQueries countQueries,
+                                ObjectProvider<MemberIndex> memberIndex, MemberSnapshotExecutor memberSnapshotExecutor) {
+        this.query = query;
+        this.countQueries = countQueries;
+        this.memberIndex = memberIndex.getIfAvailable();
+        this.memberSnapshotExecutor = memberSnapshotExecutor;
+    }
+
+    /**
+     * 스냅샷이 있으면 메모리에서 평가한다. 쓰기 트랜잭션 안이거나 회원이 많으면 JPA로 조회한다.
+     */
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return memberSnapshotExecutor.search(ExpressionUtils.allOf(MemberPredicates.search(condition)));
+    }
+
+    @Override
+    public Page<MemberDto> searchDtoPage(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<MemberDto> contentQuery = joinTeamIfNeeded(query.select(MEMBER).from(member), condition)
+                .where(MemberPredicates.search(condition));
+
+        List<MemberDto> content = contentQuery
+                .orderBy(orderBy(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> countQueries.count(contentQuery));
+    }
+
+    /**
+     * 인덱스로 처리할 때 커넥션을 잡지 않도록 트랜잭션을 새로 시작하지 않는다.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<MemberDto> findDtos(Predicate condition) {
+        List<MemberDto> indexed = memberIndex != null ? memberIndex.find(condition) : null;
+        if (indexed != null) {
+            return indexed;
+        }
+        return query
+                .select(MEMBER)
+                .from(member)
+                .where(condition)
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    @Override
+    public MemberAgeStatsDto ageStats(MemberSearchCondition condition) {
+        return joinTeamIfNeeded(query.select(AGE_STATS).from(member), condition)
+                .where(MemberPredicates.search(condition))
+                .fetchOne();
+    }
+
+    @Override
+    public List<Member> findOldest() {
+        return query
+                .selectFrom(member)
+                .where(member.age.eq(
+                        select(memberSub.age.max())
+                                .from(memberSub)
+                ))
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    @Override
+    public List<MemberTeamDto> findTeamAgeExtremes() {
+        return query
+                .select(TEAM_AGE_EXTREME)
+                .from(memberTeamAge)
+                .join(memberTeamAge.team, team)
+                .where(memberTeamAge.age.eq(memberTeamAge.teamMinAge).or(memberTeamAge.age.eq(memberTeamAge.teamMaxAge)))
+                .orderBy(team.id.asc(), memberTeamAge.age.asc(), memberTeamAge.id.asc())
+                .fetch();
+    }
+
+    private OrderSpecifier<?>[] orderBy(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        boolean byId = false;
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = SORTABLE.get(order.getProperty());
+            if (path == null) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+            byId |= path == member.id;
+        }
+        if (!byId) {
+            orders.add(member.id.asc());
+        }
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+}
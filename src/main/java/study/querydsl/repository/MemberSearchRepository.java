@@ -0,0 +1,149 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPAQueryBase;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 동적 조건 회원 검색. 어떤 조건이 채워졌는지(조건의 모양)마다 JPQL을 한 번만 만들어 두고,
+ * 이후 요청은 만들어 둔 JPQL에 파라미터만 바인딩한다.
+ * 같은 JPQL 문자열이 재사용되므로 Hibernate 쿼리 플랜 캐시에도 항상 적중한다.
+ * 조건이 4개이므로 캐시에는 많아야 16개의 JPQL이 들어간다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberSearchRepository {
+
+    private static final Param<String> USERNAME = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+    private static final QMemberTeamDto PROJECTION =
+            new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+
+    private final EntityManager em;
+    private final JPQLTemplates templates;
+    private final Map<Integer, CompiledSearch> cache = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public MemberSearchRepository(EntityManager em, MeterRegistry meterRegistry) {
+        this.em = em;
+        this.templates = JPAProvider.getTemplates(em);
+        this.hits = meterRegistry.counter("member.search.query.cache", "result", "hit");
+        this.misses = meterRegistry.counter("member.search.query.cache", "result", "miss");
+        Gauge.builder("member.search.query.cache.size", cache, Map::size).register(meterRegistry);
+        Gauge.builder("member.search.query.cache.hit.ratio", this, MemberSearchRepository::hitRatio)
+                .register(meterRegistry);
+    }
+
+    /**
+     * searchPage 의 content 와 같은 결과를 id 순으로 최대 limit 건 조회한다.
+     */
+    @SuppressWarnings("unchecked")
+    public List<MemberTeamDto> search(MemberSearchCondition condition, int limit) {
+        Map<ParamExpression<?>, Object> params = new HashMap<>();
+        int shape = 0;
+        if (StringUtils.hasText(condition.getUsername())) {
+            shape |= 1;
+            params.put(USERNAME, condition.getUsername());
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            shape |= 1 << 1;
+            params.put(TEAM_NAME, condition.getTeamName());
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= 1 << 2;
+            params.put(AGE_GOE, condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= 1 << 3;
+            params.put(AGE_LOE, condition.getAgeLoe());
+        }
+
+        CompiledSearch compiled = cache.get(shape);
+        if (compiled != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            compiled = cache.computeIfAbsent(shape, this::compile);
+        }
+
+        Query query = em.createQuery(compiled.jpql);
+        JPAUtil.setConstants(query, compiled.constants, params);
+        query.setMaxResults(limit);
+
+        List<Object[]> rows = query.getResultList();
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(PROJECTION.newInstance(row));
+        }
+        return result;
+    }
+
+    public int cacheSize() {
+        return cache.size();
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private CompiledSearch compile(int shape) {
+        JPAQueryBase<?, ?> query = new JPAQuery<>()
+                .select(PROJECTION)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        (shape & 1) != 0 ? member.username.eq(USERNAME) : null,
+                        (shape & 1 << 1) != 0 ? team.name.eq(TEAM_NAME) : null,
+                        (shape & 1 << 2) != 0 ? member.age.goe(AGE_GOE) : null,
+                        (shape & 1 << 3) != 0 ? member.age.loe(AGE_LOE) : null
+                )
+                .orderBy(member.id.asc());
+
+        JPQLSerializer serializer = new JPQLSerializer(templates, em);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new CompiledSearch(serializer.toString(), serializer.getConstants());
+    }
+
+    private static class CompiledSearch {
+
+        private final String jpql;
+        private final List<Object> constants;
+
+        CompiledSearch(String jpql, List<Object> constants) {
+            this.jpql = jpql;
+            this.constants = constants;
+        }
+    }
+
+}
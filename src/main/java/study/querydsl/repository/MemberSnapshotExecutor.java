@@ -0,0 +1,452 @@
+package study.querydsl.repository;
+
+import com.querydsl.codegen.utils.ECJEvaluatorFactory;
+import com.querydsl.codegen.utils.Evaluator;
+import com.querydsl.collections.CollQueryTemplates;
+import com.querydsl.collections.DefaultEvaluatorFactory;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원/팀 조건(Predicate)을 메모리의 스냅샷에 querydsl-collections로 평가한다. 처리할 수 없으면 JPA로 조회한다.
+ * 팀 목록처럼 자주 바뀌지 않는 참조 데이터 조회가 DB까지 가지 않게 하기 위한 것으로,
+ * 회원/팀 엔티티 변경이 커밋되거나 벌크 연산·JDBC 적재 후 invalidate()가 불리면 다음 조회 때 다시 읽는다.
+ * 그 밖의 경로(직접 실행한 SQL)로 바뀐 데이터는 ttl 이 지나야 반영된다.
+ * 평가는 인덱스 없이 전체를 훑으므로, 회원이 maxSize 보다 많으면 스냅샷을 만들지 않고 JPA로 조회한다.
+ * <p>
+ * 처리할 수 있는 조건:
+ * <ul>
+ *     <li>경로: member.id, member.username, member.age, member.team(is null / is not null),
+ *     member.team.id, member.team.name, 그리고 member.team에 조인한 team 별칭의 id, name</li>
+ *     <li>연산: and, or, not, 비교(eq, ne, lt, loe, gt, goe, between), in, not in, like, startsWith, endsWith, contains, is null</li>
+ *     <li>값은 상수만. 서브쿼리나 파라미터는 안 된다.</li>
+ * </ul>
+ * 팀 경로는 SQL에서 팀이 없는 회원을 거르므로(조인 또는 null 비교) 최상위 and 조건에서만 허용하고, 메모리에서는 팀이 있는 회원만 평가한다.
+ * SQL의 null 비교(unknown)를 흉내 내지 않으므로 스냅샷에 null 인 username/팀 이름이 있으면 그 경로를 쓰는 조건은 JPA로 조회한다.
+ */
+@Slf4j
+@Component
+public class MemberSnapshotExecutor implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final QMemberTeamDto MEMBER_TEAM =
+            new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+
+    private static final Set<Operator> SUPPORTED_OPS = Set.of(
+            Ops.AND, Ops.OR, Ops.NOT,
+            Ops.EQ, Ops.NE, Ops.LT, Ops.LOE, Ops.GT, Ops.GOE, Ops.BETWEEN, Ops.IN, Ops.NOT_IN,
+            Ops.LIKE, Ops.STARTS_WITH, Ops.ENDS_WITH, Ops.STRING_CONTAINS,
+            Ops.IS_NULL, Ops.IS_NOT_NULL
+    );
+    private static final Set<Path<?>> MEMBER_PATHS = Set.of(member.id, member.username, member.age);
+    /**
+     * team 별칭 경로는 메모리에서는 member.team 경로로 바꿔 평가한다.
+     */
+    private static final Map<Path<?>, Path<?>> TEAM_PATHS = Map.of(
+            member.team.id, member.team.id,
+            member.team.name, member.team.name,
+            team.id, member.team.id,
+            team.name, member.team.name
+    );
+
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory query;
+    private final long ttlNanos;
+    private final long maxSize;
+    /**
+     * 병렬로 평가할 조각의 최소 크기. 스냅샷이 이보다 작으면 호출한 스레드에서 평가한다.
+     */
+    private final int parallelChunkSize;
+    private final Counter hits;
+    private final Counter fallbacks;
+    /**
+     * Spring Boot 실행 jar의 클래스로더에서도 평가식을 컴파일할 수 있도록 javac 대신 ECJ를 쓴다.
+     * 평가식 클래스는 조건의 모양별로 한 번만 컴파일해 캐시하고, 상수는 평가식을 만들 때 넘긴다.
+     */
+    private final DefaultEvaluatorFactory evaluatorFactory = new DefaultEvaluatorFactory(
+            CollQueryTemplates.DEFAULT, new ECJEvaluatorFactory(MemberSnapshotExecutor.class.getClassLoader()));
+
+    private volatile Snapshot snapshot;
+    /**
+     * invalidate 할 때마다 늘린다. 다시 읽는 도중에 무효화되면 읽은 스냅샷을 저장하지 않는다.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    public MemberSnapshotExecutor(EntityManagerFactory emf, JPAQueryFactory query, MeterRegistry meterRegistry,
+                                  @Value("${app.member.snapshot.ttl:30s}") Duration ttl,
+                                  @Value("${app.member.snapshot.max-size:20000}") long maxSize,
+                                  @Value("${app.member.snapshot.parallel-chunk-size:8192}") int parallelChunkSize) {
+        this.emf = emf;
+        this.query = query;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.parallelChunkSize = parallelChunkSize;
+        this.hits = Counter.builder("member.snapshot.queries").tag("result", "hit").register(meterRegistry);
+        this.fallbacks = Counter.builder("member.snapshot.queries").tag("result", "fallback").register(meterRegistry);
+        Gauge.builder("member.snapshot.size", this, MemberSnapshotExecutor::size)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * 조건에 맞는 회원과 팀을 id 순으로 조회한다. (MemberRepository.search 와 같은 결과)
+     */
+    public List<MemberTeamDto> search(Predicate condition) {
+        Plan plan = inWriteTransaction() ? null : Plan.of(condition);
+        Snapshot current = plan != null ? snapshot() : null;
+        if (current == null || !current.supports(plan)) {
+            fallbacks.increment();
+            return query
+                    .select(MEMBER_TEAM)
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(condition)
+                    .orderBy(member.id.asc())
+                    .fetch();
+        }
+        hits.increment();
+        return evaluate(current.members, plan.predicate);
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current != null && current.members != null ? current.members.size() : 0;
+    }
+
+    /**
+     * 다음 조회 때 스냅샷을 다시 만든다. 엔티티 이벤트 없이 MEMBER/TEAM을 바꾼 뒤(벌크 update/delete, JDBC 적재) 호출한다.
+     * 트랜잭션 안이면 커밋된 뒤에 버린다. 커밋 전에 버리면 그 사이 다른 스레드가 바뀌기 전 데이터를 다시 읽어 둘 수 있다.
+     */
+    public void invalidate() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            discard();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    discard();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        discard();
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        discard();
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        discard();
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass() == Member.class || persister.getMappedClass() == Team.class;
+    }
+
+    /**
+     * 인터페이스에 남은 예전 이름. Hibernate는 requiresPostCommitHandling 을 부른다.
+     */
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private void discard() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * 스냅샷을 fork-join 공용 풀의 병렬도만큼(조각이 parallelChunkSize 보다 작아지지 않게) 나누어 평가한다.
+     * 스냅샷은 id 순이고 조각을 순서대로 이어 붙이므로 결과도 id 순이다.
+     * <p>
+     * 평가식(MethodEvaluator)은 호출 인자를 필드의 배열에 담아 쓰므로 스레드끼리 나눠 쓸 수 없다. 조각마다 하나씩 만든다.
+     * 컴파일된 클래스는 캐시되어 있으므로 만드는 비용은 조건을 직렬화하는 정도다.
+     */
+    private List<MemberTeamDto> evaluate(List<Member> members, Predicate predicate) {
+        QueryMetadata metadata = new DefaultQueryMetadata();
+        metadata.addJoin(JoinType.DEFAULT, member);
+        metadata.addWhere(predicate);
+        int chunks = (int) Math.min(ForkJoinPool.getCommonPoolParallelism() + 1L,
+                (members.size() + parallelChunkSize - 1) / parallelChunkSize);
+        if (chunks <= 1) {
+            return toDtos(evaluatorFactory.createEvaluator(metadata, member, metadata.getWhere()).evaluate(members));
+        }
+
+        List<Evaluator<List<Member>>> evaluators = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            evaluators.add(evaluatorFactory.createEvaluator(metadata, member, metadata.getWhere()));
+        }
+        int chunkSize = (members.size() + chunks - 1) / chunks;
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(i -> toDtos(evaluators.get(i).evaluate(
+                        members.subList(i * chunkSize, Math.min((i + 1) * chunkSize, members.size())))))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    private static List<MemberTeamDto> toDtos(List<Member> members) {
+        List<MemberTeamDto> result = new ArrayList<>(members.size());
+        for (Member m : members) {
+            result.add(toDto(m));
+        }
+        return result;
+    }
+
+    private static MemberTeamDto toDto(Member m) {
+        Team t = m.getTeam();
+        return new MemberTeamDto(m.getId(), m.getUsername(), m.getAge(),
+                t != null ? t.getId() : null, t != null ? t.getName() : null);
+    }
+
+    /**
+     * @return 회원이 maxSize 보다 많으면 null
+     */
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null || System.nanoTime() - current.loadedAt >= ttlNanos) {
+            current = reload();
+        }
+        return current.members != null ? current : null;
+    }
+
+    /**
+     * 한 스레드만 다시 읽고, 기다린 스레드는 그 결과를 쓴다.
+     */
+    private synchronized Snapshot reload() {
+        Snapshot current = snapshot;
+        if (current == null || System.nanoTime() - current.loadedAt >= ttlNanos) {
+            long loadingVersion = version.get();
+            current = load();
+            if (version.get() == loadingVersion) {
+                snapshot = current;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 별도 EntityManager로 읽고 닫아서 스냅샷의 엔티티가 어떤 영속성 컨텍스트에도 속하지 않게 한다.
+     * 팀은 fetch join 으로 함께 읽는다. Team.members 는 초기화하지 않으므로 조건에 쓸 수 없다.
+     */
+    private Snapshot load() {
+        long start = System.nanoTime();
+        EntityManager em = emf.createEntityManager();
+        try {
+            JPAQueryFactory snapshotQuery = new JPAQueryFactory(em);
+            Long count = snapshotQuery.select(member.count()).from(member).fetchOne();
+            if (count > maxSize) {
+                log.info("member snapshot skipped: {} members > max-size {}", count, maxSize);
+                return new Snapshot(null, start);
+            }
+            List<Member> members = snapshotQuery
+                    .selectFrom(member)
+                    .leftJoin(member.team, team).fetchJoin()
+                    .orderBy(member.id.asc())
+                    .fetch();
+            log.info("member snapshot loaded {} members in {}ms", members.size(), (System.nanoTime() - start) / 1_000_000);
+            return new Snapshot(Collections.unmodifiableList(members), start);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static final class Snapshot {
+
+        /**
+         * 회원이 maxSize 보다 많으면 null.
+         */
+        private final List<Member> members;
+        private final long loadedAt;
+        private final boolean nullUsernames;
+        private final boolean nullTeamNames;
+
+        private Snapshot(List<Member> members, long loadedAt) {
+            this.members = members;
+            this.loadedAt = loadedAt;
+            this.nullUsernames = members != null && members.stream().anyMatch(m -> m.getUsername() == null);
+            this.nullTeamNames = members != null && members.stream()
+                    .anyMatch(m -> m.getTeam() != null && m.getTeam().getName() == null);
+        }
+
+        boolean supports(Plan plan) {
+            return !(plan.usesUsername && nullUsernames) && !(plan.usesTeamName && nullTeamNames);
+        }
+    }
+
+    /**
+     * 메모리에서 평가할 수 있는지 확인하고 평가할 조건으로 바꾼 것.
+     */
+    private static final class Plan {
+
+        private Predicate predicate;
+        private boolean usesUsername;
+        private boolean usesTeamName;
+        private boolean usesTeam;
+
+        /**
+         * @return 메모리에서 평가할 수 없으면 null
+         */
+        static Plan of(Predicate condition) {
+            Predicate unwrapped = condition instanceof BooleanBuilder ? ((BooleanBuilder) condition).getValue() : condition;
+            Plan plan = new Plan();
+            if (unwrapped == null) {
+                plan.predicate = member.id.isNotNull();
+                return plan;
+            }
+            if (!plan.supported(unwrapped, true)) {
+                return null;
+            }
+            Predicate local = (Predicate) unwrapped.accept(TEAM_ALIAS_REPLACER, null);
+            // 팀 경로가 있으면 SQL처럼 팀이 없는 회원을 거른다. (and 는 앞쪽이 거짓이면 뒤쪽을 평가하지 않는다)
+            plan.predicate = plan.usesTeam ? ExpressionUtils.and(member.team.isNotNull(), local) : local;
+            return plan;
+        }
+
+        /**
+         * @param topLevel 최상위 and 로만 이어진 위치인지. or/not 아래에서는 팀 경로를 쓸 수 없다.
+         */
+        private boolean supported(Expression<?> expression, boolean topLevel) {
+            if (expression instanceof Constant) {
+                return true;
+            }
+            if (expression instanceof Path) {
+                return supportedPath((Path<?>) expression, topLevel);
+            }
+            if (!(expression instanceof Operation)) {
+                return false;
+            }
+            Operation<?> operation = (Operation<?>) expression;
+            Operator operator = operation.getOperator();
+            if (!SUPPORTED_OPS.contains(operator)) {
+                return false;
+            }
+            if ((operator == Ops.IS_NULL || operator == Ops.IS_NOT_NULL) && member.team.equals(operation.getArg(0))) {
+                return true;
+            }
+            if ((operator == Ops.IS_NULL || operator == Ops.IS_NOT_NULL) && TEAM_PATHS.containsKey(operation.getArg(0))) {
+                // 팀이 없는 회원의 팀 이름은 SQL에서 null 이지만, 메모리에서는 팀이 없는 회원을 거르므로 결과가 다르다.
+                return false;
+            }
+            boolean childTopLevel = topLevel && operator != Ops.OR && operator != Ops.NOT;
+            for (Expression<?> arg : operation.getArgs()) {
+                if (!supported(arg, childTopLevel)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean supportedPath(Path<?> path, boolean topLevel) {
+            if (MEMBER_PATHS.contains(path)) {
+                usesUsername |= path.equals(member.username);
+                return true;
+            }
+            if (TEAM_PATHS.containsKey(path) && topLevel) {
+                usesTeam = true;
+                usesTeamName |= TEAM_PATHS.get(path).equals(member.team.name);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final ReplaceVisitor<Void> TEAM_ALIAS_REPLACER = new ReplaceVisitor<>() {
+        @Override
+        public Expression<?> visit(Path<?> expr, Void context) {
+            Path<?> replaced = TEAM_PATHS.get(expr);
+            return replaced != null ? replaced : super.visit(expr, context);
+        }
+    };
+
+}
@@ -0,0 +1,81 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.TeamDto;
+import study.querydsl.entity.Team;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+@Transactional(readOnly = true)
+public class TeamQueryRepository {
+
+    public static final String TEAM_BY_NAME_REGION = "team-by-name";
+
+    private final JPAQueryFactory query;
+
+    public TeamQueryRepository(JPAQueryFactory query) {
+        this.query = query;
+    }
+
+    /**
+     * 팀 이름으로 조회한다. 결과(팀 id)는 쿼리 캐시에, 팀 엔티티는 2차 캐시에 저장되므로
+     * 두 번째 조회부터는 DB에 가지 않는다.
+     * 팀이 저장/수정/삭제되거나 벌크 연산으로 TEAM 테이블이 바뀌면 Hibernate가 캐시를 무효화한다.
+     */
+    public Team findByName(String name) {
+        return query
+                .selectFrom(team)
+                .where(team.name.eq(name))
+                .setHint(QueryHints.CACHEABLE, true)
+                .setHint(QueryHints.CACHE_REGION, TEAM_BY_NAME_REGION)
+                .fetchOne();
+    }
+
+    /**
+     * 팀 목록을 소속 회원과 함께 페이지 단위로 조회한다.
+     * 컬렉션 fetch join에 offset/limit을 걸면 Hibernate가 전체를 읽어 메모리에서 페이징하므로,
+     * 먼저 팀 id만 페이징하고 그 id들의 팀과 회원을 fetch join으로 한 번에 읽는다.
+     */
+    public Page<TeamDto> findPageWithMembers(Pageable pageable) {
+        List<Long> ids = query
+                .select(team.id)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<Team> teams = ids.isEmpty() ? Collections.emptyList() : query
+                .selectFrom(team)
+                .distinct()
+                .leftJoin(team.members, member).fetchJoin()
+                .where(team.id.in(ids))
+                .orderBy(team.id.asc(), member.id.asc())
+                .fetch();
+
+        List<TeamDto> content = teams.stream()
+                .map(t -> new TeamDto(t.getId(), t.getName(), t.getMembers().stream()
+                        .map(m -> new MemberDto(m.getUsername(), m.getAge()))
+                        .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+
+        JPAQuery<Long> countQuery = query.select(team.count()).from(team);
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+}
@@ -0,0 +1,24 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.TeamAgeDto;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+/**
+ * TeamRepository의 Querydsl 쿼리. 구현은 TeamRepositoryImpl.
+ * 캐시되는 이름 조회와 회원 포함 페이징은 TeamQueryRepository를 쓴다.
+ */
+public interface TeamRepositoryCustom {
+
+    /**
+     * 팀별 평균 나이를 팀 이름 순으로 조회한다. 회원이 없는 팀은 averageAge가 null 이다.
+     */
+    List<TeamAgeDto> findAverageAges();
+
+    /**
+     * 팀을 회원과 함께 한 번에 조회한다. (fetch join)
+     */
+    Team findWithMembers(String name);
+
+}
@@ -0,0 +1,46 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.QTeamAgeDto;
+import study.querydsl.dto.TeamAgeDto;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Transactional(readOnly = true)
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private static final QTeamAgeDto TEAM_AGE = new QTeamAgeDto(team.id, team.name, member.age.avg());
+
+    private final JPAQueryFactory query;
+
+    public TeamRepositoryImpl(JPAQueryFactory query) {
+        this.query = query;
+    }
+
+    @Override
+    public List<TeamAgeDto> findAverageAges() {
+        return query
+                .select(TEAM_AGE)
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id, team.name)
+                .orderBy(team.name.asc())
+                .fetch();
+    }
+
+    @Override
+    public Team findWithMembers(String name) {
+        return query
+                .selectFrom(team)
+                .distinct()
+                .leftJoin(team.members, member).fetchJoin()
+                .where(team.name.eq(name))
+                .fetchOne();
+    }
+
+}
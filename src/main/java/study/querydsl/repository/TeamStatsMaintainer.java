@@ -0,0 +1,237 @@
+package study.querydsl.repository;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamStats;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 회원 저장/삭제/나이·팀 변경을 Hibernate 이벤트로 받아 TEAM_STATS를 증분 갱신한다.
+ * 트랜잭션 동안의 변경은 팀별로 모아 두었다가 커밋 직전(flush 이후) 팀당 UPDATE 한 번으로 반영하고,
+ * 롤백되면 버린다. 카운트와 합계는 "col = col + ?" 로 갱신하므로 동시에 커밋되는 트랜잭션끼리 덮어쓰지 않는다.
+ * 최솟값/최댓값은 삭제나 나이 감소/증가로 줄어들 수 있을 때만 그 팀의 MEMBER에서 다시 구한다.
+ * 통계 행은 팀을 저장하는 트랜잭션에서 만든다. 그 팀은 커밋 전까지 다른 트랜잭션에 보이지 않으므로
+ * 행을 만드는 트랜잭션끼리 부딪히지 않고, 이후의 회원 변경은 언제나 UPDATE 만 한다.
+ * <p>
+ * 엔티티를 거치지 않는 벌크 update/delete는 이벤트가 없으므로 MemberBulkService가 영향받은 팀을 재계산한다.
+ * 그 밖의 경로로 생긴 차이는 TeamStatsReconciler가 바로잡는다.
+ */
+@Component
+public class TeamStatsMaintainer implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String APPLY_COUNT_SQL = "update TEAM_STATS set "
+            + "MEMBER_COUNT = MEMBER_COUNT + :count, "
+            + "AGE_SUM = AGE_SUM + :ageSum "
+            + "where TEAM_ID = :teamId";
+
+    private static final String APPLY_COUNT_MIN_MAX_SQL = "update TEAM_STATS set "
+            + "MEMBER_COUNT = MEMBER_COUNT + :count, "
+            + "AGE_SUM = AGE_SUM + :ageSum, "
+            + "MIN_AGE = case when MIN_AGE is null or MIN_AGE > :minAge then :minAge else MIN_AGE end, "
+            + "MAX_AGE = case when MAX_AGE is null or MAX_AGE < :maxAge then :maxAge else MAX_AGE end "
+            + "where TEAM_ID = :teamId";
+
+    private static final String RECOMPUTE_MIN_MAX_SQL = "update TEAM_STATS set "
+            + "MIN_AGE = (select min(m.AGE) from MEMBER m where m.TEAM_ID = :teamId), "
+            + "MAX_AGE = (select max(m.AGE) from MEMBER m where m.TEAM_ID = :teamId) "
+            + "where TEAM_ID = :teamId";
+
+    private final EntityManagerFactory emf;
+    private final Map<SharedSessionContractImplementor, Map<Long, Delta>> pending = new ConcurrentHashMap<>();
+
+    public TeamStatsMaintainer(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            delta(event.getSession(), teamId(member.getTeam())).add(member.getAge());
+        } else if (event.getEntity() instanceof Team) {
+            delta(event.getSession(), ((Team) event.getEntity()).getId()).created = true;
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            delta(event.getSession(), teamId(member.getTeam())).remove(member.getAge());
+        } else if (event.getEntity() instanceof Team) {
+            Long teamId = ((Team) event.getEntity()).getId();
+            event.getSession().getActionQueue().registerProcess((BeforeTransactionCompletionProcess) session ->
+                    nativeUpdate(session, "delete from TEAM_STATS where TEAM_ID = :teamId")
+                            .setParameter("teamId", teamId)
+                            .executeUpdate());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Member member = (Member) event.getEntity();
+        Long newTeamId = teamId(member.getTeam());
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            // 이전 값을 모르면(merge 없이 update 된 detached 엔티티) 새 팀을 통째로 다시 계산한다.
+            delta(event.getSession(), newTeamId).recomputeAll = true;
+            return;
+        }
+        String[] properties = event.getPersister().getPropertyNames();
+        int oldAge = (Integer) oldState[indexOf(properties, "age")];
+        Long oldTeamId = teamId((Team) oldState[indexOf(properties, "team")]);
+        if (oldAge == member.getAge() && Objects.equals(oldTeamId, newTeamId)) {
+            return;
+        }
+        delta(event.getSession(), oldTeamId).remove(oldAge);
+        delta(event.getSession(), newTeamId).add(member.getAge());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Hibernate 5.6 에서도 구현해야 하는 추상 메서드라 남겨 둔다. 호출은 requiresPostCommitHandling 으로 온다.
+     */
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private Delta delta(EventSource session, Long teamId) {
+        if (teamId == null) {
+            return new Delta();
+        }
+        return pending.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::apply);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, ignored) ->
+                    pending.remove(session));
+            return new TreeMap<>();
+        }).computeIfAbsent(teamId, id -> new Delta());
+    }
+
+    /**
+     * 팀 id 순서로 갱신해 동시에 커밋되는 트랜잭션끼리 교착 상태에 빠지지 않게 한다.
+     */
+    private void apply(SessionImplementor session) {
+        Map<Long, Delta> deltas = pending.remove(session);
+        if (deltas == null) {
+            return;
+        }
+        for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+            Long teamId = entry.getKey();
+            Delta delta = entry.getValue();
+            int updated = delta.created || delta.recomputeAll ? 0 : applyDelta(session, teamId, delta);
+            if (updated == 0) {
+                // 새 팀이거나, 이전 값을 모르거나, 행이 없어진 팀은 통째로 계산해 덮어쓴다.
+                nativeUpdate(session, TeamStatsRepository.RECOMPUTE_SQL)
+                        .setParameterList("teamIds", List.of(teamId))
+                        .executeUpdate();
+            } else if (delta.recomputeMinMax) {
+                nativeUpdate(session, RECOMPUTE_MIN_MAX_SQL)
+                        .setParameter("teamId", teamId)
+                        .executeUpdate();
+            }
+        }
+    }
+
+    private static int applyDelta(SessionImplementor session, Long teamId, Delta delta) {
+        NativeQuery<?> update;
+        if (delta.minAge == null || delta.recomputeMinMax) {
+            update = nativeUpdate(session, APPLY_COUNT_SQL);
+        } else {
+            update = nativeUpdate(session, APPLY_COUNT_MIN_MAX_SQL)
+                    .setParameter("minAge", delta.minAge)
+                    .setParameter("maxAge", delta.maxAge);
+        }
+        return update
+                .setParameter("count", delta.count)
+                .setParameter("ageSum", delta.ageSum)
+                .setParameter("teamId", teamId)
+                .executeUpdate();
+    }
+
+    private static NativeQuery<?> nativeUpdate(SessionImplementor session, String sql) {
+        return session.createNativeQuery(sql).addSynchronizedEntityClass(TeamStats.class);
+    }
+
+    private static Long teamId(Team team) {
+        return team != null ? team.getId() : null;
+    }
+
+    private static int indexOf(String[] properties, String name) {
+        for (int i = 0; i < properties.length; i++) {
+            if (properties[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static class Delta {
+
+        private long count;
+        private long ageSum;
+        private Integer minAge;
+        private Integer maxAge;
+        private boolean recomputeMinMax;
+        private boolean recomputeAll;
+        private boolean created;
+
+        void add(int age) {
+            count++;
+            ageSum += age;
+            minAge = minAge == null ? age : Math.min(minAge, age);
+            maxAge = maxAge == null ? age : Math.max(maxAge, age);
+        }
+
+        void remove(int age) {
+            count--;
+            ageSum -= age;
+            recomputeMinMax = true;
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.QTeamStatsDto;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.TeamStats;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * TEAM_STATS 조회와 재계산.
+ * 조회는 팀당 한 행을 읽을 뿐이라 MEMBER 크기와 관계없다. 회원이 없는 팀은 0명으로 보여준다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class TeamStatsRepository {
+
+    /**
+     * MEMBER를 팀별로 집계해 TEAM_STATS 한 행을 만들거나 덮어쓴다. :teamIds 자리에 조건을 넣어 쓴다.
+     */
+    static final String RECOMPUTE_SQL = "merge into TEAM_STATS (TEAM_ID, MEMBER_COUNT, AGE_SUM, MIN_AGE, MAX_AGE) key (TEAM_ID) "
+            + "select t.TEAM_ID, count(m.MEMBER_ID), coalesce(sum(m.AGE), 0), min(m.AGE), max(m.AGE) "
+            + "from TEAM t left join MEMBER m on m.TEAM_ID = t.TEAM_ID "
+            + "where t.TEAM_ID in (:teamIds) "
+            + "group by t.TEAM_ID";
+
+    private final EntityManager em;
+    private final JPAQueryFactory query;
+
+    public TeamStatsRepository(EntityManager em, JPAQueryFactory query) {
+        this.em = em;
+        this.query = query;
+    }
+
+    public TeamStatsDto findByTeamName(String teamName) {
+        return query
+                .select(projection())
+                .from(team)
+                .leftJoin(teamStats).on(teamStats.teamId.eq(team.id))
+                .where(team.name.eq(teamName))
+                .fetchOne();
+    }
+
+    public List<TeamStatsDto> findAll() {
+        return query
+                .select(projection())
+                .from(team)
+                .leftJoin(teamStats).on(teamStats.teamId.eq(team.id))
+                .orderBy(team.name.asc())
+                .fetch();
+    }
+
+    /**
+     * 주어진 팀의 통계를 MEMBER에서 다시 계산한다. 벌크 연산처럼 어떤 회원이 바뀌었는지 모를 때 쓴다.
+     */
+    @Transactional
+    public void recompute(Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        nativeUpdate(RECOMPUTE_SQL)
+                .setParameterList("teamIds", teamIds)
+                .executeUpdate();
+    }
+
+    @Transactional
+    public void delete(Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        nativeUpdate("delete from TEAM_STATS where TEAM_ID in (:teamIds)")
+                .setParameterList("teamIds", teamIds)
+                .executeUpdate();
+    }
+
+    /**
+     * TEAM_STATS 만 바뀐다고 알려 주어 다른 엔티티의 2차 캐시와 쿼리 캐시가 무효화되지 않게 한다.
+     */
+    private NativeQuery<?> nativeUpdate(String sql) {
+        return em.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(TeamStats.class);
+    }
+
+    private QTeamStatsDto projection() {
+        return new QTeamStatsDto(
+                team.id,
+                team.name,
+                teamStats.memberCount.coalesce(0L),
+                teamStats.ageSum.coalesce(0L),
+                teamStats.minAge,
+                teamStats.maxAge);
+    }
+
+}
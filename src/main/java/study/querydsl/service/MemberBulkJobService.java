@@ -0,0 +1,298 @@
+package study.querydsl.service;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.BulkJobResult;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.BulkJobRepository;
+import study.querydsl.repository.MemberIndex;
+import study.querydsl.repository.MemberSnapshotExecutor;
+import study.querydsl.repository.TeamStatsRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 벌크 update/delete 를 id 범위 chunk 로 나누어 chunk 마다 커밋하는 작업.
+ * 한 문장, 한 트랜잭션으로 테이블 전체를 바꾸면 락이 오래 잡히고 undo 로그가 커지므로 운영 규모에서는 이것을 쓴다.
+ *
+ * <ul>
+ *     <li>대상 id 범위는 처음 실행할 때 정해 BULK_JOB 에 남긴다. 그 뒤에 추가된 회원은 대상이 아니다.</li>
+ *     <li>chunk 의 변경과 체크포인트(BULK_JOB_CHUNK)는 같은 트랜잭션에 커밋된다. 중간에 실패하거나 프로세스가 죽으면
+ *     같은 jobId 로 다시 호출해 남은 chunk 만 실행한다. age + 1 처럼 멱등이 아닌 변경도 두 번 적용되지 않는다.</li>
+ *     <li>chunk 는 서로 겹치지 않는 id 범위이므로 parallelism 개 스레드가 나누어 실행한다.
+ *     max-chunks-per-second 를 주면 모든 스레드를 합쳐 초당 그만큼만 시작한다.</li>
+ *     <li>조건(Predicate)에는 member 컬럼만 사용해야 한다. 다시 실행할 때는 같은 조건을 넘겨야 한다.
+ *     조건은 문자열로 비교하고, update 의 set 절은 비교하지 않는다.</li>
+ * </ul>
+ *
+ * 영속성 컨텍스트를 거치지 않으므로 트랜잭션 안에서는 호출할 수 없다. 끝나면 영향받은 팀의 TEAM_STATS 를 다시 계산한다.
+ * 다시 실행한 작업은 이전 실행에서 조건이 바뀐 회원의 팀을 알 수 없으므로 TeamStatsReconciler 가 바로잡는다.
+ */
+@Slf4j
+@Service
+public class MemberBulkJobService {
+
+    static final String UPDATE = "UPDATE";
+    static final String DELETE = "DELETE";
+
+    static final String RUNNING = "RUNNING";
+    static final String FAILED = "FAILED";
+    static final String DONE = "DONE";
+
+    private final JPAQueryFactory query;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkJobRepository bulkJobRepository;
+    private final TeamStatsRepository teamStatsRepository;
+    private final EntityManagerFactory emf;
+    private final ObjectProvider<MemberIndex> memberIndex;
+    private final MemberSnapshotExecutor memberSnapshotExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private final int chunkSize;
+    private final int parallelism;
+    private final double maxChunksPerSecond;
+
+    public MemberBulkJobService(JPAQueryFactory query, PlatformTransactionManager transactionManager,
+                                BulkJobRepository bulkJobRepository, TeamStatsRepository teamStatsRepository,
+                                EntityManagerFactory emf, ObjectProvider<MemberIndex> memberIndex,
+                                MemberSnapshotExecutor memberSnapshotExecutor, MeterRegistry meterRegistry,
+                                @Value("${app.member.bulk-job.chunk-size:1000}") int chunkSize,
+                                @Value("${app.member.bulk-job.parallelism:2}") int parallelism,
+                                @Value("${app.member.bulk-job.max-chunks-per-second:0}") double maxChunksPerSecond) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("app.member.bulk-job.chunk-size must be positive: " + chunkSize);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("app.member.bulk-job.parallelism must be positive: " + parallelism);
+        }
+        this.query = query;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bulkJobRepository = bulkJobRepository;
+        this.teamStatsRepository = teamStatsRepository;
+        this.emf = emf;
+        this.memberIndex = memberIndex;
+        this.memberSnapshotExecutor = memberSnapshotExecutor;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.maxChunksPerSecond = maxChunksPerSecond;
+    }
+
+    /**
+     * <pre>
+     * memberBulkJobService.update("age-plus-1", member.age.lt(28), update -> update.set(member.age, member.age.add(1)));
+     * </pre>
+     */
+    public BulkJobResult update(String jobId, Predicate condition, Consumer<JPAUpdateClause> assignments) {
+        return run(jobId, UPDATE, condition, chunk -> {
+            JPAUpdateClause update = query.update(member).where(chunk);
+            assignments.accept(update);
+            return update.execute();
+        });
+    }
+
+    public BulkJobResult delete(String jobId, Predicate condition) {
+        return run(jobId, DELETE, condition, chunk -> query.delete(member).where(chunk).execute());
+    }
+
+    private BulkJobResult run(String jobId, String kind, Predicate condition, ToLongFunction<Predicate> operation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("bulk job commits each chunk and cannot join the calling transaction");
+        }
+        long startedAt = System.nanoTime();
+
+        BulkJobRepository.Job job = transactionTemplate.execute(status -> start(jobId, kind, condition));
+        Set<Long> done = bulkJobRepository.doneChunks(jobId);
+        List<Long> pending = new ArrayList<>();
+        if (job.getMinId() != null) {
+            for (long chunkStart = job.getMinId(); chunkStart <= job.getMaxId(); chunkStart += job.getChunkSize()) {
+                if (!done.contains(chunkStart)) {
+                    pending.add(chunkStart);
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            long totalRows = transactionTemplate.execute(status -> bulkJobRepository.finish(jobId, DONE));
+            return new BulkJobResult(jobId, 0, totalRows, 0, done.size(), Duration.ofNanos(System.nanoTime() - startedAt));
+        }
+
+        List<Long> teamIds = transactionTemplate.execute(status -> query
+                .select(member.team.id)
+                .distinct()
+                .from(member)
+                .where(condition, member.id.between(job.getMinId(), job.getMaxId()), member.team.isNotNull())
+                .fetch());
+
+        long rows;
+        try {
+            rows = runChunks(job, pending, condition, operation);
+        } catch (RuntimeException e) {
+            transactionTemplate.execute(status -> bulkJobRepository.finish(jobId, FAILED));
+            throw e;
+        } finally {
+            emf.getCache().evict(Member.class);
+            teamStatsRepository.recompute(teamIds);
+            memberIndex.ifAvailable(MemberIndex::invalidate);
+            memberSnapshotExecutor.invalidate();
+        }
+
+        long totalRows = transactionTemplate.execute(status -> bulkJobRepository.finish(jobId, DONE));
+        BulkJobResult result = new BulkJobResult(jobId, rows, totalRows, pending.size(), done.size(),
+                Duration.ofNanos(System.nanoTime() - startedAt));
+        log.info("bulk job {} {}: {} rows in {} chunks ({} already done) in {} ms, {} rows/s",
+                jobId, kind, rows, pending.size(), done.size(), result.getElapsed().toMillis(),
+                Math.round(result.getRowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * 처음이면 대상 id 범위를 정해 작업을 만들고, 이미 있으면 같은 작업인지 확인한다.
+     */
+    private BulkJobRepository.Job start(String jobId, String kind, Predicate condition) {
+        String description = String.valueOf(condition);
+        BulkJobRepository.Job existing = bulkJobRepository.find(jobId).orElse(null);
+        if (existing != null) {
+            if (!existing.getKind().equals(kind) || !existing.getDescription().equals(description)) {
+                throw new IllegalStateException("bulk job " + jobId + " was started as " + existing.getKind()
+                        + " where " + existing.getDescription());
+            }
+            return existing;
+        }
+
+        Long minId = query.select(member.id.min()).from(member).where(condition).fetchOne();
+        Long maxId = query.select(member.id.max()).from(member).where(condition).fetchOne();
+        BulkJobRepository.Job job = new BulkJobRepository.Job(jobId, kind, description, minId, maxId, chunkSize, RUNNING);
+        bulkJobRepository.create(job);
+        return job;
+    }
+
+    /**
+     * 첫 실패에서 아직 시작하지 않은 chunk 는 건너뛰고, 실행 중인 chunk 가 끝나기를 기다린 뒤 그 예외를 던진다.
+     *
+     * @return 이번 실행에서 변경된 행 수
+     */
+    private long runChunks(BulkJobRepository.Job job, List<Long> pending, Predicate condition,
+                           ToLongFunction<Predicate> operation) {
+        Counter rowsCounter = meterRegistry.counter("member.bulk.job.rows", "kind", job.getKind());
+        Timer chunkTimer = meterRegistry.timer("member.bulk.job.chunk", "kind", job.getKind());
+        Throttle throttle = new Throttle(maxChunksPerSecond);
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicLong rows = new AtomicLong();
+
+        ExecutorService executor = newExecutor(job.getJobId(), Math.min(parallelism, pending.size()));
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (long chunkStart : pending) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    if (failed.get() || !throttle.acquire()) {
+                        return;
+                    }
+                    long chunkEnd = chunkStart + job.getChunkSize() - 1;
+                    try {
+                        long count = chunkTimer.record(() -> transactionTemplate.execute(status -> {
+                            long affected = operation.applyAsLong(member.id.between(chunkStart, chunkEnd).and(condition));
+                            bulkJobRepository.recordChunk(job.getJobId(), chunkStart, affected);
+                            return affected;
+                        }));
+                        rows.addAndGet(count);
+                        rowsCounter.increment(count);
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
+                    .exceptionally(e -> null)
+                    .join();
+            for (CompletableFuture<Void> future : futures) {
+                if (future.isCompletedExceptionally()) {
+                    future.join();
+                }
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+        return rows.get();
+    }
+
+    private static ExecutorService newExecutor(String jobId, int threads) {
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "bulk-job-" + jobId + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * chunk 시작 시각을 1/maxChunksPerSecond 간격으로 나누어 준다. 0 이하면 제한하지 않는다.
+     */
+    private static class Throttle {
+
+        private final long intervalNanos;
+        private long nextSlot = System.nanoTime();
+
+        Throttle(double maxChunksPerSecond) {
+            this.intervalNanos = maxChunksPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / maxChunksPerSecond) : 0;
+        }
+
+        /**
+         * @return 기다리는 중에 인터럽트되면 false
+         */
+        boolean acquire() {
+            if (intervalNanos == 0) {
+                return true;
+            }
+            long slot;
+            synchronized (this) {
+                slot = Math.max(nextSlot, System.nanoTime());
+                nextSlot = slot + intervalNanos;
+            }
+            long wait = slot - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,195 @@
+package study.querydsl.service;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberIndex;
+import study.querydsl.repository.MemberSnapshotExecutor;
+import study.querydsl.repository.TeamStatsRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 영속성 컨텍스트를 고려하는 회원 벌크 update/delete.
+ * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로, 실행 전에 flush 하고 실행 후에는 영향을 받은 회원만 detach 한다.
+ * em.clear()와 달리 나머지 엔티티는 그대로 남는다.
+ * 조건(Predicate)에는 member 컬럼만 사용해야 한다. (벌크 연산 JPQL은 조인을 허용하지 않는다)
+ * 엔티티 이벤트가 없으므로 TEAM_STATS는 다시 계산하고, 회원 스냅샷은 버리고, MemberIndex가 켜져 있으면 커밋 뒤 다시 읽게 한다.
+ */
+@Service
+public class MemberBulkService {
+
+    private static final int IN_CLAUSE_SIZE = 1_000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory query;
+    private final TransactionTemplate transactionTemplate;
+    private final TeamStatsRepository teamStatsRepository;
+    private final ObjectProvider<MemberIndex> memberIndex;
+    private final MemberSnapshotExecutor memberSnapshotExecutor;
+
+    public MemberBulkService(EntityManager em, JPAQueryFactory query, PlatformTransactionManager transactionManager,
+                             TeamStatsRepository teamStatsRepository, ObjectProvider<MemberIndex> memberIndex,
+                             MemberSnapshotExecutor memberSnapshotExecutor) {
+        this.em = em;
+        this.query = query;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.teamStatsRepository = teamStatsRepository;
+        this.memberIndex = memberIndex;
+        this.memberSnapshotExecutor = memberSnapshotExecutor;
+    }
+
+    /**
+     * <pre>
+     * memberBulkService.update(member.age.lt(28), update -> update.set(member.age, member.age.add(1)));
+     * </pre>
+     *
+     * @return 변경된 행 수
+     */
+    @Transactional
+    public long update(Predicate condition, Consumer<JPAUpdateClause> assignments) {
+        List<Member> affected = prepare(condition);
+        List<Long> teamIds = affectedTeamIds(condition);
+
+        JPAUpdateClause update = query.update(member).where(condition);
+        assignments.accept(update);
+        long count = update.execute();
+
+        evict(affected);
+        teamStatsRepository.recompute(teamIds);
+        memberIndex.ifAvailable(MemberIndex::invalidate);
+        memberSnapshotExecutor.invalidate();
+        return count;
+    }
+
+    /**
+     * 조건에 맞는 회원을 id 범위 chunkSize 씩 나누어 update 한다.
+     * 트랜잭션 밖에서 호출하면 chunk 마다 커밋하므로 락 유지 시간과 undo 로그가 chunk 크기로 제한된다.
+     * 트랜잭션 안에서 호출하면 모든 chunk가 그 트랜잭션에 참여하고, 영향받은 회원만 detach 한다.
+     *
+     * @param chunkSize 1 이상
+     * @return 변경된 행 수
+     */
+    public long updateInChunks(Predicate condition, Consumer<JPAUpdateClause> assignments, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        List<Member> affected = inTransaction ? prepare(condition) : Collections.emptyList();
+        List<Long> teamIds = transactionTemplate.execute(status -> affectedTeamIds(condition));
+
+        Long[] range = transactionTemplate.execute(status -> new Long[]{
+                query.select(member.id.min()).from(member).where(condition).fetchOne(),
+                query.select(member.id.max()).from(member).where(condition).fetchOne()
+        });
+        long count = 0;
+        if (range[0] != null) {
+            for (long start = range[0]; start <= range[1]; start += chunkSize) {
+                long from = start;
+                long to = start + chunkSize - 1;
+                count += transactionTemplate.execute(status -> {
+                    JPAUpdateClause update = query.update(member).where(condition, member.id.between(from, to));
+                    assignments.accept(update);
+                    return update.execute();
+                });
+            }
+        }
+
+        evict(affected);
+        teamStatsRepository.recompute(teamIds);
+        memberIndex.ifAvailable(MemberIndex::invalidate);
+        memberSnapshotExecutor.invalidate();
+        return count;
+    }
+
+    /**
+     * @return 삭제된 행 수
+     */
+    @Transactional
+    public long delete(Predicate condition) {
+        List<Member> affected = prepare(condition);
+        List<Long> teamIds = affectedTeamIds(condition);
+
+        JPADeleteClause delete = query.delete(member).where(condition);
+        long count = delete.execute();
+
+        evict(affected);
+        teamStatsRepository.recompute(teamIds);
+        memberIndex.ifAvailable(MemberIndex::invalidate);
+        memberSnapshotExecutor.invalidate();
+        return count;
+    }
+
+    /**
+     * 변경 대상 판단은 실행 전에 해야 한다. (update 후에는 조건이 더 이상 맞지 않을 수 있다)
+     * 영속성 컨텍스트에 있는 회원 id로만 조회하므로 테이블 크기와 관계없이 비용이 작다.
+     */
+    private List<Member> prepare(Predicate condition) {
+        em.flush();
+
+        Map<Long, Member> managed = managedMembers();
+        List<Member> affected = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(managed.keySet());
+        for (int i = 0; i < ids.size(); i += IN_CLAUSE_SIZE) {
+            List<Long> affectedIds = query
+                    .select(member.id)
+                    .from(member)
+                    .where(condition, member.id.in(ids.subList(i, Math.min(i + IN_CLAUSE_SIZE, ids.size()))))
+                    .fetch();
+            affectedIds.forEach(id -> affected.add(managed.get(id)));
+        }
+        return affected;
+    }
+
+    /**
+     * 벌크 연산은 엔티티 이벤트가 없으므로 영향받는 팀의 TEAM_STATS를 실행 후 다시 계산한다.
+     * 회원의 팀을 바꾸는 update라면 옮겨 간 팀은 여기에 포함되지 않으므로 TeamStatsReconciler가 바로잡는다.
+     */
+    private List<Long> affectedTeamIds(Predicate condition) {
+        return query
+                .select(member.team.id)
+                .distinct()
+                .from(member)
+                .where(condition, member.team.isNotNull())
+                .fetch();
+    }
+
+    private Map<Long, Member> managedMembers() {
+        Map<Long, Member> managed = new HashMap<>();
+        for (Map.Entry<Object, EntityEntry> entry : em.unwrap(SessionImplementor.class)
+                .getPersistenceContext()
+                .reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member) {
+                Member m = (Member) entry.getKey();
+                managed.put(m.getId(), m);
+            }
+        }
+        return managed;
+    }
+
+    private void evict(List<Member> affected) {
+        for (Member m : affected) {
+            em.detach(m);
+            em.getEntityManagerFactory().getCache().evict(Member.class, m.getId());
+        }
+    }
+
+}
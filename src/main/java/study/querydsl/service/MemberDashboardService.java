@@ -0,0 +1,49 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import study.querydsl.dto.MemberDashboardDto;
+import study.querydsl.support.QueryFanOut;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.support.QueryFanOut.join;
+
+@Service
+@RequiredArgsConstructor
+public class MemberDashboardService {
+
+    private final QueryFanOut fanOut;
+
+    /**
+     * 회원/팀 집계 쿼리 여섯 개를 동시에 실행해 합친다.
+     */
+    public MemberDashboardDto dashboard() {
+        CompletableFuture<Long> memberCount = fanOut.submit(q -> q.select(member.count()).from(member).fetchOne());
+        CompletableFuture<Long> teamCount = fanOut.submit(q -> q.select(team.count()).from(team).fetchOne());
+        CompletableFuture<Integer> minAge = fanOut.submit(q -> q.select(member.age.min()).from(member).fetchOne());
+        CompletableFuture<Integer> maxAge = fanOut.submit(q -> q.select(member.age.max()).from(member).fetchOne());
+        CompletableFuture<Double> averageAge = fanOut.submit(q -> q.select(member.age.avg()).from(member).fetchOne());
+        CompletableFuture<List<Tuple>> byTeam = fanOut.submit(q -> q
+                .select(team.name, member.count())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id, team.name)
+                .orderBy(team.name.asc())
+                .fetch());
+
+        Map<String, Long> memberCountByTeam = new LinkedHashMap<>();
+        for (Tuple tuple : join(byTeam)) {
+            memberCountByTeam.put(tuple.get(team.name), tuple.get(member.count()));
+        }
+        return new MemberDashboardDto(join(memberCount), join(teamCount), join(minAge), join(maxAge),
+                join(averageAge), memberCountByTeam);
+    }
+
+}
@@ -0,0 +1,50 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.mysema.commons.lang.CloseableIterator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberQueryRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private final MemberQueryRepository memberQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.member.export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * 조건에 맞는 회원을 NDJSON(한 줄에 하나의 JSON)으로 스트리밍한다.
+     * fetchSize 단위로 flush 하므로 결과 건수와 관계없이 메모리 사용량이 일정하다.
+     *
+     * @return 내보낸 회원 수
+     */
+    @Transactional(readOnly = true)
+    public long export(MemberSearchCondition condition, OutputStream out) throws IOException {
+        long count = 0;
+        try (CloseableIterator<MemberDto> members = memberQueryRepository.iterate(condition, fetchSize);
+             SequenceWriter writer = objectMapper.writerFor(MemberDto.class)
+                     .withRootValueSeparator("\n")
+                     .writeValues(out)) {
+            while (members.hasNext()) {
+                writer.write(members.next());
+                if (++count % fetchSize == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,89 @@
+package study.querydsl.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberRecord;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.TeamQueryRepository;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Service
+public class MemberIngestService {
+
+    private final EntityManager em;
+    private final TeamQueryRepository teamQueryRepository;
+
+    /**
+     * hibernate.jdbc.batch_size의 배수로 맞춘다.
+     */
+    private final int chunkSize;
+
+    public MemberIngestService(EntityManager em, TeamQueryRepository teamQueryRepository,
+                               @Value("${app.member.ingest.chunk-size:1000}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("app.member.ingest.chunk-size must be positive: " + chunkSize);
+        }
+        this.em = em;
+        this.teamQueryRepository = teamQueryRepository;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 회원을 대량 등록한다.
+     * id는 SEQUENCE(pooled, allocationSize 50)로 미리 받아 두므로 INSERT가 JDBC 배치로 묶이고,
+     * chunkSize 건마다 flush/clear 하여 영속성 컨텍스트가 계속 커지지 않는다.
+     * 없는 팀은 새로 만든다.
+     *
+     * @return 등록한 회원 수
+     */
+    @Transactional
+    public long ingest(Stream<MemberRecord> records) {
+        Map<String, Long> teamIds = new HashMap<>();
+        long count = 0;
+
+        Iterator<MemberRecord> iterator = records.iterator();
+        while (iterator.hasNext()) {
+            MemberRecord record = iterator.next();
+            em.persist(new Member(record.getUsername(), record.getAge(), team(record.getTeamName(), teamIds)));
+
+            if (++count % chunkSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+    /**
+     * clear 이후에도 팀을 다시 조회하지 않도록 id만 기억해 두고 프록시로 연결한다.
+     */
+    private Team team(String teamName, Map<String, Long> teamIds) {
+        if (!StringUtils.hasText(teamName)) {
+            return null;
+        }
+
+        Long teamId = teamIds.get(teamName);
+        if (teamId != null) {
+            return em.getReference(Team.class, teamId);
+        }
+
+        Team team = teamQueryRepository.findByName(teamName);
+        if (team == null) {
+            team = new Team(teamName);
+            em.persist(team);
+        }
+        teamIds.put(teamName, team.getId());
+        return team;
+    }
+
+}
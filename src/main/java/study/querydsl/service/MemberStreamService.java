@@ -0,0 +1,69 @@
+package study.querydsl.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import study.querydsl.dto.KeysetPage;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberKeysetSort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberQueryRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 조건에 맞는 회원을 Flux로 흘려보낸다.
+ * 구독자가 요청(demand)할 때만 keyset 페이징으로 chunkSize 건씩 읽으므로, 느린 클라이언트는 다음 chunk 조회를 늦출 뿐
+ * 결과 전체가 메모리에 쌓이지 않는다.
+ * JPA 조회는 블로킹이므로 전용 bounded 스케줄러에서 실행하고, chunk마다 읽기 전용 트랜잭션을 새로 열어
+ * 스트림이 열려 있는 동안 커넥션을 붙잡지 않는다.
+ */
+@Service
+public class MemberStreamService {
+
+    private final MemberQueryRepository memberQueryRepository;
+    private final Scheduler scheduler;
+    private final int chunkSize;
+
+    public MemberStreamService(MemberQueryRepository memberQueryRepository,
+                               @Value("${app.member.stream.threads:4}") int threads,
+                               @Value("${app.member.stream.queue-size:1000}") int queueSize,
+                               @Value("${app.member.stream.chunk-size:500}") int chunkSize) {
+        this.memberQueryRepository = memberQueryRepository;
+        this.scheduler = Schedulers.newBoundedElastic(threads, queueSize, "member-stream");
+        this.chunkSize = chunkSize;
+    }
+
+    public Flux<MemberDto> stream(MemberSearchCondition condition) {
+        return streamChunks(condition).concatMapIterable(Function.identity(), 1);
+    }
+
+    /**
+     * stream()과 같지만 chunk 단위로 내보낸다. 원소마다 응답을 flush 하는 비용을 줄일 때 쓴다.
+     */
+    public Flux<List<MemberDto>> streamChunks(MemberSearchCondition condition) {
+        return Flux.<List<MemberDto>, String[]>generate(() -> new String[]{null}, (cursor, sink) -> {
+                    KeysetPage<MemberDto> page = memberQueryRepository.findPageByKeyset(
+                            condition, MemberKeysetSort.AGE, cursor[0], chunkSize);
+                    if (!page.getContent().isEmpty()) {
+                        sink.next(page.getContent());
+                    }
+                    if (!page.hasNext()) {
+                        sink.complete();
+                    }
+                    cursor[0] = page.getNextCursor();
+                    return cursor;
+                })
+                .subscribeOn(scheduler);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+}
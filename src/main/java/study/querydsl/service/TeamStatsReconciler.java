@@ -0,0 +1,95 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.TeamStats;
+import study.querydsl.repository.TeamStatsRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * TEAM_STATS를 MEMBER의 GROUP BY 결과와 비교해 다른 팀을 다시 계산한다.
+ * 이벤트를 거치지 않은 벌크 연산이나 직접 실행한 SQL로 생긴 차이를 바로잡기 위한 것이다.
+ */
+@Slf4j
+@Service
+public class TeamStatsReconciler {
+
+    private final JPAQueryFactory query;
+    private final TeamStatsRepository teamStatsRepository;
+    private final Counter mismatches;
+
+    public TeamStatsReconciler(JPAQueryFactory query, TeamStatsRepository teamStatsRepository, MeterRegistry meterRegistry) {
+        this.query = query;
+        this.teamStatsRepository = teamStatsRepository;
+        this.mismatches = meterRegistry.counter("team.stats.reconcile.mismatches");
+    }
+
+    @Scheduled(fixedDelayString = "${app.team-stats.reconcile-interval:PT10M}",
+            initialDelayString = "${app.team-stats.reconcile-interval:PT10M}")
+    public void scheduled() {
+        reconcile();
+    }
+
+    /**
+     * @return 바로잡은 팀 id
+     */
+    @Transactional
+    public List<Long> reconcile() {
+        Map<Long, TeamStats> stored = new HashMap<>();
+        for (TeamStats stats : query.selectFrom(teamStats).fetch()) {
+            stored.put(stats.getTeamId(), stats);
+        }
+
+        NumberExpression<Long> ageSum = Expressions.numberTemplate(Long.class, "coalesce(sum({0}), 0)", member.age);
+        List<Long> mismatched = new ArrayList<>();
+        List<Tuple> live = query
+                .select(team.id, member.count(), ageSum, member.age.min(), member.age.max())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id)
+                .fetch();
+        for (Tuple row : live) {
+            Long teamId = row.get(team.id);
+            TeamStats stats = stored.remove(teamId);
+            long count = row.get(member.count());
+            // 행이 없는 팀도 만들어 두어야 이후 회원 변경이 UPDATE 로 끝난다.
+            boolean matches = stats != null
+                    && stats.getMemberCount() == count
+                    && stats.getAgeSum() == row.get(ageSum)
+                    && Objects.equals(stats.getMinAge(), row.get(member.age.min()))
+                    && Objects.equals(stats.getMaxAge(), row.get(member.age.max()));
+            if (!matches) {
+                mismatched.add(teamId);
+            }
+        }
+
+        if (!mismatched.isEmpty()) {
+            log.warn("team stats out of sync, recomputing teams {}", mismatched);
+            mismatches.increment(mismatched.size());
+            teamStatsRepository.recompute(mismatched);
+        }
+        // 삭제된 팀의 통계 행
+        if (!stored.isEmpty()) {
+            teamStatsRepository.delete(stored.keySet());
+        }
+        return mismatched;
+    }
+
+}
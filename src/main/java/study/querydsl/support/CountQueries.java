@@ -0,0 +1,364 @@
+package study.querydsl.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Wildcard;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 조회 쿼리(JPAQuery)에서 COUNT 쿼리를 만든다. fetchCount()/fetchResults()는 조회 쿼리를 그대로 count로 감싸므로
+ * groupBy/having이 있으면 틀린 값을 내고, 조인이 많으면 느리다.
+ *
+ * <ul>
+ *     <li>ORDER BY, offset/limit, fetch join 표시, 쿼리 힌트는 버린다.</li>
+ *     <li>where/groupBy/having이나 뒤의 조인에서 쓰지 않는 left join 중 to-one 조인은 행 수를 바꾸지 않으므로 버린다.
+ *     distinct 엔티티 조회라면 쓰지 않는 to-many left join도 버린다.</li>
+ *     <li>count(distinct ...)는 distinct 쿼리이면서 남은 조인 때문에 행이 늘어날 수 있을 때만 쓴다.</li>
+ *     <li>groupBy가 있으면 그룹 키만 조회해 그룹 수를 센다. (JPQL은 FROM 절 서브쿼리를 지원하지 않는다)</li>
+ * </ul>
+ *
+ * <pre>
+ * JPAQuery&lt;MemberDto&gt; contentQuery = query.select(...).from(member).leftJoin(member.team, team).where(...);
+ * List&lt;MemberDto&gt; content = contentQuery.offset(...).limit(...).fetch();
+ * return PageableExecutionUtils.getPage(content, pageable, () -&gt; countQueries.count(contentQuery));
+ * </pre>
+ */
+@Component
+public class CountQueries {
+
+    private final JPAQueryFactory query;
+    private final EntityManager em;
+
+    public CountQueries(JPAQueryFactory query, EntityManager em) {
+        this.query = query;
+        this.em = em;
+    }
+
+    /**
+     * query가 돌려줄 행 수(offset/limit 무시).
+     */
+    public long count(JPAQuery<?> source) {
+        QueryMetadata metadata = source.getMetadata();
+        if (metadata.getGroupBy().isEmpty()) {
+            Long count = countQuery(source).fetchOne();
+            return count != null ? count : 0;
+        }
+        return derive(metadata, groupKeys(metadata.getGroupBy()), false).fetch().size();
+    }
+
+    /**
+     * 그대로 실행할 수 있는 COUNT 쿼리. groupBy가 있는 쿼리는 count(JPAQuery)를 써야 한다.
+     */
+    public JPAQuery<Long> countQuery(JPAQuery<?> source) {
+        QueryMetadata metadata = source.getMetadata();
+        if (!metadata.getGroupBy().isEmpty()) {
+            throw new IllegalArgumentException("group by query has no single count query, use count(query)");
+        }
+        return derive(metadata, countExpression(metadata), false);
+    }
+
+    /**
+     * 조건 없이 엔티티 테이블 전체를 세는 쿼리면 DB 통계의 추정 행 수를 돌려준다. (H2, PostgreSQL, MySQL)
+     * 조건이 있거나, 엔티티가 아닌 값을 distinct 로 세거나, 추정치를 얻을 수 없으면 count(query)와 같다.
+     * 통계는 마지막 ANALYZE 시점 기준이므로 화면에 "약 N건" 처럼 보여 줄 때만 쓴다.
+     */
+    public long estimatedCount(JPAQuery<?> source) {
+        QueryMetadata metadata = source.getMetadata();
+        List<JoinExpression> joins = metadata.getJoins();
+        boolean wholeTable = joins.size() == 1
+                && joins.get(0).getTarget() instanceof EntityPath
+                && metadata.getWhere() == null
+                && metadata.getGroupBy().isEmpty()
+                && metadata.getHaving() == null
+                // distinct 엔티티는 행마다 다르므로 행 수와 같다. distinct 나이는 그렇지 않다.
+                && (!metadata.isDistinct() || joins.get(0).getTarget().equals(metadata.getProjection()));
+        if (wholeTable) {
+            Long estimate = tableEstimate(joins.get(0).getTarget().getType());
+            if (estimate != null && estimate >= 0) {
+                return estimate;
+            }
+        }
+        return count(source);
+    }
+
+    /**
+     * 최대 max 건까지만 센다. max 보다 많으면 max + 1 을 돌려준다. ("1000건 이상")
+     * DB는 max + 1 행을 찾는 즉시 멈추므로 큰 테이블의 넓은 조건에서도 비용이 max 에 비례한다.
+     * distinct 쿼리는 원래 projection을 그대로 읽으므로 엔티티 조회라면 엔티티를 max + 1 개까지 만든다.
+     */
+    public long countUpTo(JPAQuery<?> source, long max) {
+        QueryMetadata metadata = source.getMetadata();
+        JPAQuery<?> rows;
+        if (!metadata.getGroupBy().isEmpty()) {
+            rows = derive(metadata, groupKeys(metadata.getGroupBy()), false);
+        } else if (metadata.isDistinct()) {
+            rows = derive(metadata, metadata.getProjection(), true);
+        } else {
+            rows = derive(metadata, Expressions.ONE, false);
+        }
+        return rows.limit(max + 1).fetch().size();
+    }
+
+    private <T> JPAQuery<T> derive(QueryMetadata metadata, Expression<T> projection, boolean distinct) {
+        JPAQuery<?> count = query.query();
+        QueryMetadata target = count.getMetadata();
+
+        List<JoinExpression> joins = keptJoins(metadata, projection);
+        for (JoinExpression join : joins) {
+            target.addJoin(join.getType(), join.getTarget());
+            for (JoinFlag flag : join.getFlags()) {
+                if (!flag.equals(JPAQueryMixin.FETCH) && !flag.equals(JPAQueryMixin.FETCH_ALL_PROPERTIES)) {
+                    target.addJoinFlag(flag);
+                }
+            }
+            if (join.getCondition() != null) {
+                target.addJoinCondition(join.getCondition());
+            }
+        }
+        if (metadata.getWhere() != null) {
+            target.addWhere(metadata.getWhere());
+        }
+        metadata.getGroupBy().forEach(target::addGroupBy);
+        if (metadata.getHaving() != null) {
+            target.addHaving(metadata.getHaving());
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : metadata.getParams().entrySet()) {
+            setParam(target, param.getKey(), param.getValue());
+        }
+        target.setDistinct(distinct);
+        target.setProjection(projection);
+
+        @SuppressWarnings("unchecked")
+        JPAQuery<T> typed = (JPAQuery<T>) count;
+        return typed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setParam(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, (T) value);
+    }
+
+    private Expression<Long> countExpression(QueryMetadata metadata) {
+        if (!metadata.isDistinct()) {
+            return Wildcard.count;
+        }
+        Expression<?> projection = metadata.getProjection();
+        boolean rootEntity = projection instanceof EntityPath && isRoot(metadata, projection);
+        if (rootEntity && !multipliesRows(keptJoins(metadata, projection))) {
+            return Wildcard.count;
+        }
+        if (projection instanceof FactoryExpression) {
+            throw new IllegalArgumentException("count of multi-column distinct query is not supported: " + projection);
+        }
+        return Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_DISTINCT_AGG, projection);
+    }
+
+    private static Expression<?> groupKeys(List<Expression<?>> groupBy) {
+        return groupBy.size() == 1 ? groupBy.get(0) : Projections.tuple(groupBy.toArray(new Expression<?>[0]));
+    }
+
+    /**
+     * 뒤에서부터 보면서, 이후 조인이나 조건에서 쓰지 않는 left join 중 행 수를 바꾸지 않는 것을 버린다.
+     */
+    private static List<JoinExpression> keptJoins(QueryMetadata metadata, Expression<?> projection) {
+        Set<Path<?>> used = new HashSet<>();
+        PathCollector.collect(metadata.getWhere(), used);
+        PathCollector.collect(metadata.getHaving(), used);
+        metadata.getGroupBy().forEach(e -> PathCollector.collect(e, used));
+        PathCollector.collect(projection, used);
+
+        boolean distinctRoot = metadata.isDistinct()
+                && metadata.getProjection() instanceof EntityPath
+                && isRoot(metadata, metadata.getProjection());
+
+        List<JoinExpression> joins = metadata.getJoins();
+        List<JoinExpression> kept = new ArrayList<>(joins.size());
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            boolean droppable = join.getType() == JoinType.LEFTJOIN
+                    && association(join) != null
+                    && (!isToMany(join) || distinctRoot)
+                    && !isUsed(alias(join), used);
+            if (!droppable) {
+                kept.add(0, join);
+                PathCollector.collect(join.getTarget(), used);
+                PathCollector.collect(join.getCondition(), used);
+            }
+        }
+        return kept;
+    }
+
+    private static boolean multipliesRows(List<JoinExpression> joins) {
+        long roots = joins.stream().filter(j -> association(j) == null).count();
+        return roots > 1 || joins.stream().anyMatch(CountQueries::isToMany);
+    }
+
+    private static boolean isRoot(QueryMetadata metadata, Expression<?> path) {
+        return metadata.getJoins().stream().anyMatch(j -> association(j) == null && j.getTarget().equals(path));
+    }
+
+    /**
+     * join(member.team, team) 의 member.team. from 절의 루트나 theta join 대상이면 null.
+     */
+    private static Expression<?> association(JoinExpression join) {
+        Expression<?> target = join.getTarget();
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            return ((Operation<?>) target).getArg(0);
+        }
+        if (target instanceof Path && ((Path<?>) target).getMetadata().getParent() != null) {
+            return target;
+        }
+        return null;
+    }
+
+    private static boolean isToMany(JoinExpression join) {
+        Expression<?> association = association(join);
+        return association instanceof CollectionExpression || association instanceof MapExpression;
+    }
+
+    private static Path<?> alias(JoinExpression join) {
+        Expression<?> target = join.getTarget();
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            return (Path<?>) ((Operation<?>) target).getArg(1);
+        }
+        return (Path<?>) target;
+    }
+
+    private static boolean isUsed(Path<?> alias, Set<Path<?>> used) {
+        for (Path<?> path : used) {
+            for (Path<?> p = path; p != null; p = p.getMetadata().getParent()) {
+                if (p.equals(alias)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Long tableEstimate(Class<?> entityType) {
+        Object persister = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(entityType);
+        if (!(persister instanceof AbstractEntityPersister)) {
+            return null;
+        }
+        String table = ((AbstractEntityPersister) persister).getTableName();
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            String product = connection.getMetaData().getDatabaseProductName().toLowerCase();
+            String sql;
+            if (product.contains("h2")) {
+                sql = "select ROW_COUNT_ESTIMATE from INFORMATION_SCHEMA.TABLES where upper(TABLE_NAME) = upper(?)";
+            } else if (product.contains("postgresql")) {
+                sql = "select reltuples::bigint from pg_class where relname = lower(?) and relkind = 'r'";
+            } else if (product.contains("mysql") || product.contains("mariadb")) {
+                sql = "select TABLE_ROWS from information_schema.TABLES where TABLE_SCHEMA = database() and TABLE_NAME = ?";
+            } else {
+                return null;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, table);
+                try (ResultSet rs = statement.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : null;
+                }
+            }
+        });
+    }
+
+    /**
+     * 식 안에서 쓰인 경로를 모은다. 상관 서브쿼리가 바깥 별칭을 쓰는 경우도 포함한다.
+     */
+    private static class PathCollector implements Visitor<Void, Set<Path<?>>> {
+
+        private static final PathCollector INSTANCE = new PathCollector();
+
+        static void collect(Expression<?> expression, Set<Path<?>> paths) {
+            if (expression != null) {
+                expression.accept(INSTANCE, paths);
+            }
+        }
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Path<?>> paths) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Path<?>> paths) {
+            expr.getArgs().forEach(arg -> collect(arg, paths));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Path<?>> paths) {
+            expr.getArgs().forEach(arg -> collect(arg, paths));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Path<?>> paths) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Path<?>> paths) {
+            paths.add(expr);
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Path<?>> paths) {
+            QueryMetadata metadata = expr.getMetadata();
+            for (JoinExpression join : metadata.getJoins()) {
+                collect(join.getTarget(), paths);
+                collect(join.getCondition(), paths);
+            }
+            collect(metadata.getWhere(), paths);
+            collect(metadata.getHaving(), paths);
+            metadata.getGroupBy().forEach(e -> collect(e, paths));
+            collect(metadata.getProjection(), paths);
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Path<?>> paths) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    collect((Expression<?>) arg, paths);
+                }
+            }
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+package study.querydsl.support;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.MemberCountCache;
+import study.querydsl.repository.MemberIndex;
+import study.querydsl.repository.MemberSnapshotExecutor;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 운영 규모(10^6건 이상)의 TEAM/MEMBER 데이터를 JDBC 배치 INSERT로 넣는다. JMH 벤치마크와 통합 테스트에서 쓴다.
+ * 같은 Spec(seed 포함)이면 항상 같은 데이터가 만들어진다.
+ *
+ * <ul>
+ *     <li>팀 크기: Zipf 분포 (teamSkew). 앞쪽 몇 팀에 회원이 몰리고 대부분의 팀은 작다.</li>
+ *     <li>나이: 20~30대에 몰린 정규 분포 + 전 구간 균등 분포를 섞는다. ageSkewed=false 면 균등 분포.</li>
+ *     <li>이름: usernamePrefixes 중 하나(Zipf 분포) + 일련번호. like 'prefix%' 검색의 선택도가 접두어마다 다르다.</li>
+ * </ul>
+ *
+ * id는 엔티티와 같은 시퀀스(H2 NEXT VALUE FOR)에서 받는다. Hibernate 이벤트를 거치지 않으므로
+ * 넣은 팀의 TEAM_STATS는 마지막에 다시 계산하고, 2차 캐시와 회원 수 캐시, 회원 스냅샷은 비우고, MemberIndex는 다시 읽게 한다.
+ */
+@Slf4j
+@Component
+public class DataGenerator {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbc;
+    private final EntityManagerFactory emf;
+    private final MemberCountCache memberCountCache;
+    private final ObjectProvider<MemberIndex> memberIndex;
+    private final MemberSnapshotExecutor memberSnapshotExecutor;
+
+    public DataGenerator(JdbcTemplate jdbc, EntityManagerFactory emf, MemberCountCache memberCountCache,
+                         ObjectProvider<MemberIndex> memberIndex, MemberSnapshotExecutor memberSnapshotExecutor) {
+        this.jdbc = jdbc;
+        this.emf = emf;
+        this.memberCountCache = memberCountCache;
+        this.memberIndex = memberIndex;
+        this.memberSnapshotExecutor = memberSnapshotExecutor;
+    }
+
+    @Getter
+    @Builder
+    public static class Spec {
+
+        @Builder.Default
+        private final int teams = 1_000;
+        @Builder.Default
+        private final int members = 1_000_000;
+        /**
+         * Zipf 지수. 0 이면 모든 팀에 고르게 나눈다.
+         */
+        @Builder.Default
+        private final double teamSkew = 1.1;
+        @Builder.Default
+        private final double noTeamRatio = 0.02;
+        @Builder.Default
+        private final boolean ageSkewed = true;
+        @Builder.Default
+        private final int minAge = 15;
+        @Builder.Default
+        private final int maxAge = 80;
+        @Builder.Default
+        private final List<String> usernamePrefixes =
+                Arrays.asList("kim", "lee", "park", "choi", "jung", "kang", "cho", "yoon", "jang", "lim");
+        @Builder.Default
+        private final double usernameSkew = 1.0;
+        /**
+         * TEAM.NAME은 unique 이므로 같은 DB에 여러 번 넣으려면 바꿔야 한다.
+         */
+        @Builder.Default
+        private final String teamNamePrefix = "team";
+        @Builder.Default
+        private final long seed = 42;
+
+        /**
+         * 팀, 나이(1~100), 이름("member" + 일련번호) 모두 고르게 분포한다.
+         */
+        public static Spec uniform(int teams, int members) {
+            return Spec.builder()
+                    .teams(teams)
+                    .members(members)
+                    .teamSkew(0)
+                    .noTeamRatio(0)
+                    .ageSkewed(false)
+                    .minAge(1)
+                    .maxAge(100)
+                    .usernamePrefixes(List.of("member"))
+                    .build();
+        }
+    }
+
+    /**
+     * @return 넣은 회원 수
+     */
+    public long generate(Spec spec) {
+        long start = System.nanoTime();
+        Random random = new Random(spec.getSeed());
+
+        List<Long> teamIds = insertTeams(spec);
+        ZipfSampler teamSampler = new ZipfSampler(teamIds.size(), spec.getTeamSkew());
+        ZipfSampler prefixSampler = new ZipfSampler(spec.getUsernamePrefixes().size(), spec.getUsernameSkew());
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= spec.getMembers(); i++) {
+            String username = spec.getUsernamePrefixes().get(prefixSampler.next(random)) + i;
+            Long teamId = teamIds.isEmpty() || random.nextDouble() < spec.getNoTeamRatio()
+                    ? null
+                    : teamIds.get(teamSampler.next(random));
+            batch.add(new Object[]{username, age(spec, random), teamId});
+            if (batch.size() == BATCH_SIZE) {
+                insertMembers(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertMembers(batch);
+        }
+
+        recomputeTeamStats(teamIds);
+        emf.unwrap(SessionFactory.class).getCache().evictAll();
+        memberCountCache.clear();
+        memberIndex.ifAvailable(MemberIndex::invalidate);
+        memberSnapshotExecutor.invalidate();
+
+        log.info("generated {} teams, {} members in {}ms", teamIds.size(), spec.getMembers(),
+                (System.nanoTime() - start) / 1_000_000);
+        return spec.getMembers();
+    }
+
+    private List<Long> insertTeams(Spec spec) {
+        if (spec.getTeams() == 0) {
+            return List.of();
+        }
+        List<Long> teamIds = jdbc.queryForList(
+                "SELECT NEXT VALUE FOR TEAM_SEQ FROM SYSTEM_RANGE(1, ?)", Long.class, spec.getTeams());
+        List<Object[]> rows = new ArrayList<>(teamIds.size());
+        for (int i = 0; i < teamIds.size(); i++) {
+            rows.add(new Object[]{teamIds.get(i), spec.getTeamNamePrefix() + (i + 1)});
+        }
+        jdbc.batchUpdate("INSERT INTO TEAM (TEAM_ID, NAME) VALUES (?, ?)", rows);
+        return teamIds;
+    }
+
+    private void insertMembers(List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO MEMBER (MEMBER_ID, USERNAME, AGE, TEAM_ID) "
+                + "VALUES (NEXT VALUE FOR MEMBER_SEQ, ?, ?, ?)", batch);
+    }
+
+    private void recomputeTeamStats(List<Long> teamIds) {
+        List<Object[]> deletes = new ArrayList<>(teamIds.size());
+        List<Object[]> inserts = new ArrayList<>(teamIds.size());
+        for (Long teamId : teamIds) {
+            deletes.add(new Object[]{teamId});
+            inserts.add(new Object[]{teamId, teamId});
+        }
+        jdbc.batchUpdate("DELETE FROM TEAM_STATS WHERE TEAM_ID = ?", deletes);
+        jdbc.batchUpdate("INSERT INTO TEAM_STATS (TEAM_ID, MEMBER_COUNT, AGE_SUM, MIN_AGE, MAX_AGE) "
+                + "SELECT ?, count(*), coalesce(sum(AGE), 0), min(AGE), max(AGE) FROM MEMBER WHERE TEAM_ID = ?", inserts);
+    }
+
+    /**
+     * 80%는 평균 32, 표준편차 9 인 정규 분포, 20%는 전 구간 균등 분포.
+     */
+    private static int age(Spec spec, Random random) {
+        int range = spec.getMaxAge() - spec.getMinAge() + 1;
+        if (!spec.isAgeSkewed() || random.nextDouble() < 0.2) {
+            return spec.getMinAge() + random.nextInt(range);
+        }
+        int age = (int) Math.round(32 + random.nextGaussian() * 9);
+        return Math.max(spec.getMinAge(), Math.min(spec.getMaxAge(), age));
+    }
+
+    /**
+     * k 번째(0부터) 값을 1 / (k + 1)^s 에 비례하는 확률로 고른다. 누적 분포를 이진 탐색한다.
+     */
+    static class ZipfSampler {
+
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double s) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += 1 / Math.pow(k + 1, s);
+                cumulative[k] = sum;
+            }
+            for (int k = 0; k < n; k++) {
+                cumulative[k] /= sum;
+            }
+        }
+
+        int next(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            index = index >= 0 ? index : -index - 1;
+            return Math.min(index, cumulative.length - 1);
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package study.querydsl.support;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * 결과를 가져오는 메서드를 MeteredJPAQueryFactory.record 로 감싼 JPAQuery.
+ */
+class MeteredJPAQuery<T> extends JPAQuery<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final MeteredJPAQueryFactory factory;
+
+    MeteredJPAQuery(EntityManager em, MeteredJPAQueryFactory factory) {
+        super(em);
+        this.factory = factory;
+    }
+
+    private MeteredJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata,
+                            MeteredJPAQueryFactory factory) {
+        super(em, templates, metadata);
+        this.factory = factory;
+    }
+
+    @Override
+    public List<T> fetch() {
+        return factory.record(this, "fetch", super::fetch, List::size);
+    }
+
+    @Override
+    public T fetchOne() throws NonUniqueResultException {
+        return factory.record(this, "fetchOne", super::fetchOne, result -> result == null ? 0 : 1);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public long fetchCount() {
+        return factory.record(this, "fetchCount", super::fetchCount, count -> 1);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public QueryResults<T> fetchResults() {
+        return factory.record(this, "fetchResults", super::fetchResults, results -> results.getResults().size());
+    }
+
+    @Override
+    public MeteredJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        MeteredJPAQuery<T> q = new MeteredJPAQuery<>(entityManager, templates, getMetadata().clone(), factory);
+        q.clone(this);
+        return q;
+    }
+
+    /**
+     * ?1=value, ?2=value ... (Param 자리는 set 으로 넘긴 값)
+     */
+    String bindings() {
+        List<Object> constants = serialize(false).getConstants();
+        Map<ParamExpression<?>, Object> params = getMetadata().getParams();
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < constants.size(); i++) {
+            Object value = constants.get(i);
+            if (value instanceof ParamExpression) {
+                value = params.get(value);
+            }
+            joiner.add("?" + (i + 1) + "=" + value);
+        }
+        return joiner.toString();
+    }
+
+}
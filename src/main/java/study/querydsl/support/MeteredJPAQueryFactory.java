@@ -0,0 +1,180 @@
+package study.querydsl.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.QTuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * fetch/fetchOne/fetchCount/fetchResults 마다 Micrometer 지표를 남기는 JPAQueryFactory.
+ * 쿼리는 호출한 코드(클래스.메서드)로 구분해 query 태그에 넣는다. 람다 안에서 호출하면 람다를 감싼 메서드 이름이 된다.
+ *
+ * <ul>
+ *     <li>querydsl.query: 지연 시간 (method, projection, outcome 태그, 퍼센타일 히스토그램)</li>
+ *     <li>querydsl.query.rows: 반환한 행 수</li>
+ *     <li>querydsl.query.statements: 논리 쿼리 한 번에 실행된 JDBC 문장 수 (지연 로딩, batch fetch 포함)</li>
+ *     <li>querydsl.query.result.processing: 전체 시간에서 JDBC 시간을 뺀 시간.
+ *     projection=entity 면 엔티티 hydration, dto/tuple/scalar 면 프로젝션에 쓴 시간이다.</li>
+ * </ul>
+ *
+ * slowQueryThreshold를 넘은 쿼리는 JPQL과 바인딩 값을 WARN으로 남긴다.
+ * JFR 기록 중이면 쿼리마다 QuerydslFetchEvent(행 수, JDBC 문장 수, 할당량)를 남긴다.
+ * iterate()/stream()은 결과를 다 읽는 시점을 알 수 없으므로 재지 않는다.
+ */
+@Slf4j
+public class MeteredJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final MeterRegistry meterRegistry;
+    private final StatementCounter statementCounter;
+    private final long slowQueryThresholdNanos;
+
+    public MeteredJPAQueryFactory(EntityManager em, MeterRegistry meterRegistry, StatementCounter statementCounter,
+                                  Duration slowQueryThreshold) {
+        super(em);
+        this.em = em;
+        this.meterRegistry = meterRegistry;
+        this.statementCounter = statementCounter;
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new MeteredJPAQuery<Void>(em, this);
+    }
+
+    <T> T record(MeteredJPAQuery<?> query, String method, Supplier<T> work, ToLongFunction<T> rows) {
+        String name = caller();
+        String projection = projection(query.getMetadata().getProjection());
+        QuerydslFetchEvent event = new QuerydslFetchEvent();
+        long allocatedBefore = event.isEnabled() ? ThreadAllocations.current() : -1;
+        event.begin();
+        long start = System.nanoTime();
+        StatementCounter.Counted<T> counted;
+        try {
+            counted = statementCounter.count(work);
+        } catch (RuntimeException e) {
+            timer(name, method, projection, "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, name, method, projection, "error", 0, 0, allocatedBefore);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        long rowCount = rows.applyAsLong(counted.getResult());
+        commit(event, name, method, projection, "success", rowCount, counted.getStatements(), allocatedBefore);
+
+        timer(name, method, projection, "success").record(elapsed, TimeUnit.NANOSECONDS);
+        summary("querydsl.query.rows", name).record(rowCount);
+        summary("querydsl.query.statements", name).record(counted.getStatements());
+        Timer.builder("querydsl.query.result.processing")
+                .tags("query", name, "projection", projection)
+                .register(meterRegistry)
+                .record(Math.max(elapsed - counted.getJdbcNanos(), 0), TimeUnit.NANOSECONDS);
+
+        if (elapsed >= slowQueryThresholdNanos) {
+            log.warn("slow query {}.{} {}ms ({} statements)\n{}\nbindings: {}", name, method,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), counted.getStatements(),
+                    query.toString(), query.bindings());
+        }
+        return counted.getResult();
+    }
+
+    private static void commit(QuerydslFetchEvent event, String name, String method, String projection,
+                               String outcome, long rows, long statements, long allocatedBefore) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.query = name;
+        event.method = method;
+        event.projection = projection;
+        event.outcome = outcome;
+        event.rows = rows;
+        event.statements = statements;
+        event.allocated = allocatedBefore < 0 ? -1 : ThreadAllocations.current() - allocatedBefore;
+        event.commit();
+    }
+
+    private Timer timer(String name, String method, String projection, String outcome) {
+        return Timer.builder("querydsl.query")
+                .tags("query", name, "method", method, "projection", projection, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary summary(String metric, String name) {
+        return DistributionSummary.builder(metric)
+                .tags("query", name)
+                .register(meterRegistry);
+    }
+
+    private static String projection(Expression<?> projection) {
+        if (projection instanceof EntityPath) {
+            return "entity";
+        }
+        if (projection instanceof QTuple) {
+            return "tuple";
+        }
+        if (projection instanceof FactoryExpression) {
+            return "dto";
+        }
+        return "scalar";
+    }
+
+    /**
+     * Querydsl, 이 클래스, Spring 프록시를 건너뛴 첫 호출 위치.
+     */
+    private static String caller() {
+        Optional<StackWalker.StackFrame> frame = StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> !isInfrastructure(f.getClassName()))
+                .findFirst());
+        return frame.map(f -> simpleName(f.getClassName()) + "." + methodName(f.getMethodName()))
+                .orElse("unknown");
+    }
+
+    private static boolean isInfrastructure(String className) {
+        return className.startsWith("com.querydsl.")
+                || isClassOrInner(className, MeteredJPAQueryFactory.class)
+                || isClassOrInner(className, MeteredJPAQuery.class)
+                || isClassOrInner(className, StatementCounter.class)
+                || isClassOrInner(className, CountQueries.class)
+                || className.startsWith("org.springframework.")
+                || className.startsWith("java.")
+                || className.startsWith("jdk.")
+                || className.contains("$$");
+    }
+
+    private static boolean isClassOrInner(String className, Class<?> type) {
+        return className.equals(type.getName()) || className.startsWith(type.getName() + "$");
+    }
+
+    private static String simpleName(String className) {
+        String name = className.substring(className.lastIndexOf('.') + 1);
+        int inner = name.indexOf('$');
+        return inner < 0 ? name : name.substring(0, inner);
+    }
+
+    /**
+     * lambda$dashboard$0 → dashboard
+     */
+    private static String methodName(String methodName) {
+        if (methodName.startsWith("lambda$")) {
+            int end = methodName.indexOf('$', "lambda$".length());
+            return methodName.substring("lambda$".length(), end < 0 ? methodName.length() : end);
+        }
+        return methodName;
+    }
+
+}
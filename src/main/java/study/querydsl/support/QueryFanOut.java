@@ -0,0 +1,110 @@
+package study.querydsl.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 서로 독립적인 Querydsl 쿼리를 동시에 실행한다.
+ * 쿼리마다 별도 스레드의 읽기 전용 트랜잭션(= 별도 EntityManager, 별도 커넥션)에서 실행하므로
+ * 여러 집계를 합친 응답 시간이 각 쿼리 시간의 합이 아니라 가장 느린 쿼리 시간에 가까워진다.
+ *
+ * <ul>
+ *     <li>동시에 실행되는 쿼리 수는 maxConcurrency로 제한한다. 커넥션 풀 크기보다 작게 잡아야
+ *     호출한 스레드가 쥔 커넥션과 합쳐도 풀이 바닥나지 않는다.</li>
+ *     <li>JDK가 지원하면 가상 스레드를, 아니면 maxConcurrency 크기의 스레드 풀을 쓴다.</li>
+ *     <li>각 쿼리는 자기 트랜잭션에서 커밋된 데이터만 본다. 쓰기 트랜잭션 안에서 호출하면
+ *     아직 커밋되지 않은 변경이 보이지 않으므로 IllegalStateException을 던진다.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class QueryFanOut {
+
+    private final JPAQueryFactory query;
+    private final TransactionTemplate readOnly;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    public QueryFanOut(JPAQueryFactory query, PlatformTransactionManager transactionManager,
+                       @Value("${app.query.fan-out.max-concurrency:4}") int maxConcurrency) {
+        this.query = query;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = newExecutor(maxConcurrency);
+    }
+
+    /**
+     * <pre>
+     * CompletableFuture&lt;Long&gt; count = fanOut.submit(q -&gt; q.select(member.count()).from(member).fetchOne());
+     * CompletableFuture&lt;Integer&gt; maxAge = fanOut.submit(q -&gt; q.select(member.age.max()).from(member).fetchOne());
+     * return new Result(QueryFanOut.join(count), QueryFanOut.join(maxAge));
+     * </pre>
+     */
+    public <T> CompletableFuture<T> submit(Function<JPAQueryFactory, T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            throw new IllegalStateException("fan-out queries cannot see changes of the calling read-write transaction");
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                return readOnly.execute(status -> work.apply(query));
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * CompletableFuture.join()과 같지만 쿼리에서 발생한 예외를 CompletionException으로 감싸지 않고 그대로 던진다.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            // JDK 21 이상 (컴파일은 11 기준이므로 리플렉션으로 호출)
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.info("query fan-out uses virtual threads");
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger sequence = new AtomicInteger();
+            return Executors.newFixedThreadPool(maxConcurrency, r -> {
+                Thread thread = new Thread(r, "query-fan-out-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+}
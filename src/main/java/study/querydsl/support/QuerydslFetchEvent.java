@@ -0,0 +1,46 @@
+package study.querydsl.support;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * MeteredJPAQueryFactory 가 fetch/fetchOne/fetchCount/fetchResults 마다 남기는 JFR 이벤트.
+ * JFR 기록 중일 때만 남는다. (예: jcmd &lt;pid&gt; JFR.start settings=profile)
+ * 같은 스레드의 jdk.ObjectAllocationSample 과 시간 구간을 맞춰 보면 어떤 쿼리가 무엇을 할당했는지 알 수 있다.
+ */
+@Name("study.querydsl.QuerydslFetch")
+@Label("Querydsl Fetch")
+@Category({"Application", "Querydsl"})
+@Description("Querydsl 쿼리 한 번의 실행과 결과 처리")
+@StackTrace(false)
+class QuerydslFetchEvent extends jdk.jfr.Event {
+
+    @Label("Query")
+    @Description("호출한 코드 (클래스.메서드)")
+    String query;
+
+    @Label("Method")
+    String method;
+
+    @Label("Projection")
+    String projection;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("JDBC Statements")
+    long statements;
+
+    @Label("Allocated")
+    @Description("실행한 스레드가 할당한 힙. 측정할 수 없으면 -1")
+    @DataAmount
+    long allocated;
+
+}
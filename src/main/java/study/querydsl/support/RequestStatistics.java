@@ -0,0 +1,128 @@
+package study.querydsl.support;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HTTP 요청 하나 동안 Hibernate 가 한 일. RequestStatisticsFactory 의 통계 구현이 현재 스레드의 인스턴스에 더한다.
+ * begin()과 end() 사이에 같은 스레드에서 일어난 일만 센다. 비동기 응답을 만드는 다른 스레드의 작업은 빠진다.
+ * <p>
+ * loaded 는 쿼리 결과(조인 fetch 포함)로 읽은 것, fetched 는 지연 로딩이나 batch fetch 처럼 따로 SELECT 해서 읽은 것이다.
+ */
+@Getter
+public class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private long entitiesLoaded;
+    private long entitiesFetched;
+    private long collectionsLoaded;
+    private long collectionsFetched;
+    private long queries;
+    private long statements;
+    private long flushes;
+    private long cacheHits;
+    private long cacheMisses;
+    private int persistenceContextEntities;
+    private int persistenceContextCollections;
+    /**
+     * 측정할 수 없으면 -1.
+     */
+    private long allocatedBytes;
+
+    private final Map<String, Long> entityLoads = new HashMap<>();
+    private final Map<String, Long> collectionLoads = new HashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    private final long allocatedBefore = ThreadAllocations.current();
+
+    /**
+     * 현재 스레드에서 새로 센다. 이미 세고 있던 것은 버린다.
+     */
+    public static RequestStatistics begin() {
+        RequestStatistics statistics = new RequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * @return 세고 있지 않으면 null
+     */
+    public static RequestStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 세기를 멈추고 할당량을 확정한다.
+     *
+     * @return 세고 있지 않았으면 null
+     */
+    public static RequestStatistics end() {
+        RequestStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        if (statistics != null) {
+            statistics.allocatedBytes = statistics.allocatedBefore < 0 ? -1
+                    : ThreadAllocations.current() - statistics.allocatedBefore;
+        }
+        return statistics;
+    }
+
+    public Map<String, Long> getEntityLoads() {
+        return Collections.unmodifiableMap(entityLoads);
+    }
+
+    public Map<String, Long> getCollectionLoads() {
+        return Collections.unmodifiableMap(collectionLoads);
+    }
+
+    void entityLoaded(String entityName, boolean fetched) {
+        if (fetched) {
+            entitiesFetched++;
+        } else {
+            entitiesLoaded++;
+        }
+        entityLoads.merge(entityName, 1L, Long::sum);
+    }
+
+    void collectionLoaded(String role, boolean fetched) {
+        if (fetched) {
+            collectionsFetched++;
+        } else {
+            collectionsLoaded++;
+        }
+        collectionLoads.merge(role, 1L, Long::sum);
+    }
+
+    void queryExecuted() {
+        queries++;
+    }
+
+    void statementPrepared() {
+        statements++;
+    }
+
+    void flushed() {
+        flushes++;
+    }
+
+    void cacheAccessed(boolean hit) {
+        if (hit) {
+            cacheHits++;
+        } else {
+            cacheMisses++;
+        }
+    }
+
+    /**
+     * 요청이 끝날 때 영속성 컨텍스트(open-in-view 로 요청 내내 유지된다)에 남아 있는 엔티티와 컬렉션 수.
+     */
+    public void persistenceContext(int entities, int collections) {
+        this.persistenceContextEntities = entities;
+        this.persistenceContextCollections = collections;
+    }
+
+}
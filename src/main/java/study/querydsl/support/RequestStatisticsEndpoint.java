@@ -0,0 +1,123 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * 엔드포인트(HTTP 메서드 + URL 패턴)별 RequestStatistics 집계. /actuator/hibernaterequests 로 본다.
+ * 지표마다 요청 합계와 최대값, 그리고 많이 읽은 엔티티와 컬렉션(role) 상위 TOP 개를 보여 준다.
+ * 같은 값은 hibernate.request.* 분포 지표(endpoint 태그)로도 남긴다.
+ * <p>
+ * 컬렉션 role 이 요청 수보다 훨씬 많이 fetch 되면 N+1 이고 (예: Team.members),
+ * entities.loaded 가 응답 크기보다 훨씬 크면 필요 없는 엔티티까지 읽고 있는 것이다.
+ */
+@Endpoint(id = "hibernaterequests")
+public class RequestStatisticsEndpoint {
+
+    private static final int TOP = 10;
+
+    private static final Map<String, ToLongFunction<RequestStatistics>> METRICS = metrics();
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Aggregate> endpoints = new ConcurrentHashMap<>();
+
+    public RequestStatisticsEndpoint(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(String endpoint, RequestStatistics statistics) {
+        endpoints.computeIfAbsent(endpoint, e -> new Aggregate()).add(statistics);
+        METRICS.forEach((name, metric) -> {
+            long value = metric.applyAsLong(statistics);
+            if (value >= 0) {
+                DistributionSummary.builder("hibernate.request." + name)
+                        .tags("endpoint", endpoint)
+                        .register(meterRegistry)
+                        .record(value);
+            }
+        });
+    }
+
+    @ReadOperation
+    public Map<String, Object> endpoints() {
+        Map<String, Object> report = new TreeMap<>();
+        endpoints.forEach((endpoint, aggregate) -> report.put(endpoint, aggregate.report()));
+        return report;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private static Map<String, ToLongFunction<RequestStatistics>> metrics() {
+        Map<String, ToLongFunction<RequestStatistics>> metrics = new LinkedHashMap<>();
+        metrics.put("entities.loaded", RequestStatistics::getEntitiesLoaded);
+        metrics.put("entities.fetched", RequestStatistics::getEntitiesFetched);
+        metrics.put("collections.loaded", RequestStatistics::getCollectionsLoaded);
+        metrics.put("collections.fetched", RequestStatistics::getCollectionsFetched);
+        metrics.put("queries", RequestStatistics::getQueries);
+        metrics.put("statements", RequestStatistics::getStatements);
+        metrics.put("flushes", RequestStatistics::getFlushes);
+        metrics.put("cache.hits", RequestStatistics::getCacheHits);
+        metrics.put("cache.misses", RequestStatistics::getCacheMisses);
+        metrics.put("persistence.context.entities", RequestStatistics::getPersistenceContextEntities);
+        metrics.put("persistence.context.collections", RequestStatistics::getPersistenceContextCollections);
+        metrics.put("allocated.bytes", RequestStatistics::getAllocatedBytes);
+        return metrics;
+    }
+
+    private static class Aggregate {
+
+        private long requests;
+        private final Map<String, long[]> totalAndMax = new LinkedHashMap<>();
+        private final Map<String, Long> entityLoads = new HashMap<>();
+        private final Map<String, Long> collectionLoads = new HashMap<>();
+
+        synchronized void add(RequestStatistics statistics) {
+            requests++;
+            METRICS.forEach((name, metric) -> {
+                long value = metric.applyAsLong(statistics);
+                if (value >= 0) {
+                    long[] values = totalAndMax.computeIfAbsent(name, n -> new long[2]);
+                    values[0] += value;
+                    values[1] = Math.max(values[1], value);
+                }
+            });
+            statistics.getEntityLoads().forEach((name, count) -> entityLoads.merge(name, count, Long::sum));
+            statistics.getCollectionLoads().forEach((role, count) -> collectionLoads.merge(role, count, Long::sum));
+        }
+
+        synchronized Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("requests", requests);
+            totalAndMax.forEach((name, values) -> report.put(name, Map.of("total", values[0], "max", values[1])));
+            report.put("entityLoads", top(entityLoads));
+            report.put("collectionLoads", top(collectionLoads));
+            return report;
+        }
+
+        private static Map<String, Long> top(Map<String, Long> counts) {
+            Map<String, Long> top = new LinkedHashMap<>();
+            counts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                    .limit(TOP)
+                    .forEach(e -> top.put(e.getKey(), e.getValue()));
+            return top;
+        }
+
+    }
+
+}
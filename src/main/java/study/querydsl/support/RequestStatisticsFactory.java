@@ -0,0 +1,137 @@
+package study.querydsl.support;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+/**
+ * hibernate.stats.factory 로 등록한다. 전역 통계(StatisticsImpl)는 그대로 두고,
+ * 현재 스레드에 RequestStatistics 가 있으면 같은 사건을 거기에도 더한다.
+ * Hibernate 는 hibernate.generate_statistics=true 일 때만 통계 메서드를 부른다.
+ */
+public class RequestStatisticsFactory implements StatisticsFactory {
+
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+        return new RequestScopedStatistics(sessionFactory);
+    }
+
+    static class RequestScopedStatistics extends StatisticsImpl {
+
+        private static final long serialVersionUID = 1L;
+
+        RequestScopedStatistics(SessionFactoryImplementor sessionFactory) {
+            super(sessionFactory);
+        }
+
+        @Override
+        public void loadEntity(String entityName) {
+            super.loadEntity(entityName);
+            RequestStatistics current = RequestStatistics.current();
+            if (current != null) {
+                current.entityLoaded(entityName, false);
+            }
+        }
+
+        @Override
+        public void fetchEntity(String entityName) {
+            super.fetchEntity(entityName);
+            RequestStatistics current = RequestStatistics.current();
+            if (current != null) {
+                current.entityLoaded(entityName, true);
+            }
+        }
+
+        @Override
+        public void loadCollection(String role) {
+            super.loadCollection(role);
+            RequestStatistics current = RequestStatistics.current();
+            if (current != null) {
+                current.collectionLoaded(role, false);
+            }
+        }
+
+        @Override
+        public void fetchCollection(String role) {
+            super.fetchCollection(role);
+            RequestStatistics current = RequestStatistics.current();
+            if (current != null) {
+                current.collectionLoaded(role, true);
+            }
+        }
+
+        @Override
+        public void queryExecuted(String hql, int rows, long time) {
+            super.queryExecuted(hql, rows, time);
+            RequestStatistics current = RequestStatistics.current();
+            if (current != null) {
+                current.queryExecuted();
+            }
+        }
+
+        @Override
+        public void prepareStatement() {
+            super.prepareStatement();
+            RequestStatistics current = RequestStatistics.current();
+            if (current != null) {
+                current.statementPrepared();
+            }
+        }
+
+        @Override
+        public void flush() {
+            super.flush();
+            RequestStatistics current = RequestStatistics.current();
+            if (current != null) {
+                current.flushed();
+            }
+        }
+
+        @Override
+        public void entityCacheHit(NavigableRole entityName, String regionName) {
+            super.entityCacheHit(entityName, regionName);
+            cacheAccessed(true);
+        }
+
+        @Override
+        public void entityCacheMiss(NavigableRole entityName, String regionName) {
+            super.entityCacheMiss(entityName, regionName);
+            cacheAccessed(false);
+        }
+
+        @Override
+        public void collectionCacheHit(NavigableRole collectionRole, String regionName) {
+            super.collectionCacheHit(collectionRole, regionName);
+            cacheAccessed(true);
+        }
+
+        @Override
+        public void collectionCacheMiss(NavigableRole collectionRole, String regionName) {
+            super.collectionCacheMiss(collectionRole, regionName);
+            cacheAccessed(false);
+        }
+
+        @Override
+        public void queryCacheHit(String hql, String regionName) {
+            super.queryCacheHit(hql, regionName);
+            cacheAccessed(true);
+        }
+
+        @Override
+        public void queryCacheMiss(String hql, String regionName) {
+            super.queryCacheMiss(hql, regionName);
+            cacheAccessed(false);
+        }
+
+        private static void cacheAccessed(boolean hit) {
+            RequestStatistics current = RequestStatistics.current();
+            if (current != null) {
+                current.cacheAccessed(hit);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+package study.querydsl.support;
+
+import org.hibernate.Session;
+import org.hibernate.stat.SessionStatistics;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 요청마다 RequestStatistics 를 세어 RequestStatisticsEndpoint 에 남긴다.
+ * 영속성 컨텍스트 크기를 읽어야 하므로 open-in-view 인터셉터보다 뒤에 등록해 먼저 afterCompletion 이 불리게 한다.
+ * 비동기 요청은 핸들러가 비동기 처리를 시작할 때까지 센 것은 버리고, 다시 디스패치된 부분만 센다.
+ */
+public class RequestStatisticsInterceptor implements AsyncHandlerInterceptor {
+
+    private final EntityManagerFactory emf;
+    private final RequestStatisticsEndpoint endpoint;
+
+    public RequestStatisticsInterceptor(EntityManagerFactory emf, RequestStatisticsEndpoint endpoint) {
+        this.emf = emf;
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestStatistics.begin();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestStatistics.end();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestStatistics statistics = RequestStatistics.end();
+        if (statistics == null) {
+            return;
+        }
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        if (holder != null && holder.getEntityManager().isOpen()) {
+            SessionStatistics session = holder.getEntityManager().unwrap(Session.class).getStatistics();
+            statistics.persistenceContext(session.getEntityCount(), session.getCollectionCount());
+        }
+        endpoint.record(endpointName(request), statistics);
+    }
+
+    /**
+     * GET /teams 처럼 HTTP 메서드와 매핑된 URL 패턴. 경로 변수 값마다 따로 모이지 않도록 실제 URL 은 쓰지 않는다.
+     */
+    private static String endpointName(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "UNMAPPED");
+    }
+
+}
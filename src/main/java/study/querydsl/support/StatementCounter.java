@@ -0,0 +1,93 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * p6spy 이벤트로 현재 스레드에서 실행된 JDBC 문장 수를 센다.
+ * count() 안에서 실행된 문장만 세고, 중첩 호출하면 바깥 count()에도 합산된다.
+ * batch는 executeBatch 한 번을 한 문장으로 센다.
+ * 문장 실행과 ResultSet.next()에 걸린 시간(JDBC 시간)도 함께 더한다.
+ */
+@Component
+public class StatementCounter extends SimpleJdbcEventListener {
+
+    private static final int STATEMENTS = 0;
+    private static final int JDBC_NANOS = 1;
+
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[STATEMENTS]++;
+            count[JDBC_NANOS] += timeElapsedNanos;
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                     boolean hasNext, SQLException e) {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[JDBC_NANOS] += timeElapsedNanos;
+        }
+    }
+
+    public long count(Runnable work) {
+        return count(() -> {
+            work.run();
+            return null;
+        }).getStatements();
+    }
+
+    public <T> Counted<T> count(Supplier<T> work) {
+        long[] outer = COUNT.get();
+        long[] current = new long[2];
+        COUNT.set(current);
+        try {
+            T result = work.get();
+            return new Counted<>(result, current[STATEMENTS], current[JDBC_NANOS]);
+        } finally {
+            if (outer != null) {
+                outer[STATEMENTS] += current[STATEMENTS];
+                outer[JDBC_NANOS] += current[JDBC_NANOS];
+                COUNT.set(outer);
+            } else {
+                COUNT.remove();
+            }
+        }
+    }
+
+    public static class Counted<T> {
+
+        private final T result;
+        private final long statements;
+        private final long jdbcNanos;
+
+        Counted(T result, long statements, long jdbcNanos) {
+            this.result = result;
+            this.statements = statements;
+            this.jdbcNanos = jdbcNanos;
+        }
+
+        public T getResult() {
+            return result;
+        }
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getJdbcNanos() {
+            return jdbcNanos;
+        }
+    }
+
+}
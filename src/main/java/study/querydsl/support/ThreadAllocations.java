@@ -0,0 +1,30 @@
+package study.querydsl.support;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 현재 스레드가 지금까지 힙에 할당한 바이트 수. HotSpot 의 com.sun.management.ThreadMXBean 을 쓰고,
+ * 지원하지 않거나 꺼져 있으면 -1 이다. 두 시점의 차이로 구간의 할당량을 잰다.
+ */
+public final class ThreadAllocations {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private ThreadAllocations() {
+    }
+
+    public static long current() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,38 @@
+-- 예전에 ddl-auto 가 만들던 스키마
+create sequence HIBERNATE_SEQUENCE start with 1 increment by 1;
+create sequence MEMBER_SEQ start with 1 increment by 50;
+create sequence TEAM_SEQ start with 1 increment by 50;
+
+create table HELLO (
+    ID bigint not null,
+    primary key (ID)
+);
+
+create table TEAM (
+    TEAM_ID bigint not null,
+    NAME varchar(255),
+    primary key (TEAM_ID)
+);
+
+create table MEMBER (
+    MEMBER_ID bigint not null,
+    AGE integer not null,
+    USERNAME varchar(255),
+    TEAM_ID bigint,
+    primary key (MEMBER_ID)
+);
+
+create table TEAM_STATS (
+    TEAM_ID bigint not null,
+    AGE_SUM bigint not null,
+    MAX_AGE integer,
+    MEMBER_COUNT bigint not null,
+    MIN_AGE integer,
+    primary key (TEAM_ID)
+);
+
+alter table MEMBER add constraint FK_MEMBER_TEAM foreign key (TEAM_ID) references TEAM (TEAM_ID);
+
+-- keyset 페이징 (age, id), (username, id)
+create index IDX_MEMBER_AGE_ID on MEMBER (AGE, MEMBER_ID);
+create index IDX_MEMBER_USERNAME_ID on MEMBER (USERNAME, MEMBER_ID);
@@ -0,0 +1,5 @@
+-- 팀 조인 + 나이 조건/정렬 (팀 이름 검색, 팀별 집계, TEAM_STATS 재계산). 외래 키 조회도 이 인덱스가 맡는다.
+create index IDX_MEMBER_TEAM_AGE on MEMBER (TEAM_ID, AGE);
+
+-- 팀 이름으로 찾기 (findByName, 팀 이름 검색 조건, member.username = team.name 세타 조인)
+alter table TEAM add constraint UK_TEAM_NAME unique (NAME);
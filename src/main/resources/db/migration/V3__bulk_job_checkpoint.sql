@@ -0,0 +1,25 @@
+-- MemberBulkJobService 진행 상황. 작업마다 한 행, 끝난 chunk 마다 한 행.
+-- chunk 의 update/delete 와 BULK_JOB_CHUNK 행은 같은 트랜잭션에 커밋되므로, 다시 실행하면 남은 chunk 만 실행한다.
+create table BULK_JOB (
+    JOB_ID varchar(100) not null,
+    KIND varchar(20) not null,
+    DESCRIPTION varchar(2000) not null,
+    MIN_ID bigint,
+    MAX_ID bigint,
+    CHUNK_SIZE integer not null,
+    STATUS varchar(20) not null,
+    ROWS_AFFECTED bigint not null,
+    CREATED_AT timestamp not null,
+    UPDATED_AT timestamp not null,
+    primary key (JOB_ID)
+);
+
+-- 병렬 chunk 가 BULK_JOB 한 행을 두고 다투지 않도록 chunk 결과는 따로 쌓는다.
+create table BULK_JOB_CHUNK (
+    JOB_ID varchar(100) not null,
+    CHUNK_START bigint not null,
+    ROWS_AFFECTED bigint not null,
+    primary key (JOB_ID, CHUNK_START)
+);
+
+alter table BULK_JOB_CHUNK add constraint FK_BULK_JOB_CHUNK_JOB foreign key (JOB_ID) references BULK_JOB (JOB_ID);
@@ -0,0 +1,7 @@
+-- 회원 변경은 TEAM_STATS 행을 UPDATE 만 하므로 모든 팀에 행이 있어야 한다.
+-- 통계 행 없이 저장된 팀(회원이 없던 팀 포함)의 행을 MEMBER에서 계산해 만든다. 이후 팀은 저장할 때 행이 생긴다.
+insert into TEAM_STATS (TEAM_ID, MEMBER_COUNT, AGE_SUM, MIN_AGE, MAX_AGE)
+select t.TEAM_ID, count(m.MEMBER_ID), coalesce(sum(m.AGE), 0), min(m.AGE), max(m.AGE)
+from TEAM t left join MEMBER m on m.TEAM_ID = t.TEAM_ID
+where not exists (select 1 from TEAM_STATS s where s.TEAM_ID = t.TEAM_ID)
+group by t.TEAM_ID;
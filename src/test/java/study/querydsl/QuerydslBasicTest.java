@@ -1,7 +1,6 @@
 package study.querydsl;
 
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.QueryResults;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
@@ -9,20 +8,25 @@ import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.dsl.CaseBuilder;
 import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.assertj.core.api.Assertions;
 import org.assertj.core.data.Percentage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Commit;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberDtoBean;
+import study.querydsl.dto.QUserDtoBean;
 import study.querydsl.dto.UserDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.support.CountQueries;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -46,12 +50,14 @@ public class QuerydslBasicTest {
      * Multi-Thread 환경에서 문제 없이 동작하도록 설계되었다.
      * 주입 받는 EntityManager 또한 Multi-Thread 환경에서 문제 없이 동작하도록 설계되었다.
      */
+    @Autowired
     JPAQueryFactory query;
 
+    @Autowired
+    CountQueries countQueries;
+
     @BeforeEach
     void before() {
-        query = new JPAQueryFactory(em);
-
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
         em.persist(teamA);
@@ -145,20 +151,12 @@ public class QuerydslBasicTest {
         Assertions.assertThat(fetchFirst.getUsername()).isEqualTo("member1");
 
         /**
-         * // 쿼리를 두 번 실행함 (COUNT를 얻어오는 쿼리, 결과를 가져오는 쿼리) - deprecated 됨
-         *         QueryResults<Member> fetchResults = query
-         *                 .selectFrom(member)
-         *                 .fetchResults();
-         *         long total = fetchResults.getTotal();
-         *         List<Member> results = fetchResults.getResults();
+         * fetchResults(), fetchCount()는 deprecated 됨 (조회 쿼리를 그대로 COUNT로 감싸므로 groupBy/having에서 틀린다)
+         * 조회 쿼리에서 ORDER BY, 불필요한 조인을 뺀 COUNT 쿼리를 만들어 쓴다.
          */
+        long count = countQueries.count(query.selectFrom(member).orderBy(member.id.asc()));
 
-        /**
-         * // COUNT를 가져오는 쿼리 - deprecated 됨
-         * long count = query
-         *                 .selectFrom(member)
-         *                 .fetchCount();
-        */
+        Assertions.assertThat(count).isEqualTo(4L);
     }
 
     /**
@@ -205,17 +203,19 @@ public class QuerydslBasicTest {
 
     @Test
     void paging2() {
-        QueryResults<Member> queryResults = query
+        JPAQuery<Member> contentQuery = query
                 .selectFrom(member)
                 .orderBy(member.username.desc())
                 .offset(1)
-                .limit(2)
-                .fetchResults();
+                .limit(2);
 
-        Assertions.assertThat(queryResults.getTotal()).isSameAs(4L);
-        Assertions.assertThat(queryResults.getLimit()).isSameAs(2L);
-        Assertions.assertThat(queryResults.getOffset()).isSameAs(1L);
-        Assertions.assertThat(queryResults.getResults().size()).isEqualTo(2);
+        List<Member> results = contentQuery.fetch();
+        long total = countQueries.count(contentQuery);
+
+        Assertions.assertThat(total).isEqualTo(4L);
+        Assertions.assertThat(contentQuery.getMetadata().getModifiers().getLimit()).isEqualTo(2L);
+        Assertions.assertThat(contentQuery.getMetadata().getModifiers().getOffset()).isEqualTo(1L);
+        Assertions.assertThat(results.size()).isEqualTo(2);
     }
 
     @Test
@@ -674,6 +674,44 @@ public class QuerydslBasicTest {
         Assertions.assertThat(result.size()).isSameAs(4);
     }
 
+    /**
+     * 컴파일 시점에 생성된 QMemberDtoBean은 리플렉션 없이 setter를 직접 호출한다.
+     */
+    @Test
+    void findDtoByBeanProjection() {
+        List<MemberDto> result = query
+                .select(new QMemberDtoBean(member.username, member.age))
+                .from(member)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        Assertions.assertThat(result.size()).isSameAs(4);
+        Assertions.assertThat(result.get(0).getUsername()).isEqualTo("member1");
+        Assertions.assertThat(result.get(0).getAge()).isEqualTo(10);
+    }
+
+    /**
+     * 필드 이름이 달라도 위치로 매핑하므로 ExpressionUtils.as 로 별칭을 줄 필요가 없다.
+     */
+    @Test
+    void findUserDtoByBeanProjection() {
+        QMember memberSub = new QMember("memberSub");
+
+        List<UserDto> result = query
+                .select(new QUserDtoBean(
+                        member.username,
+                        select(memberSub.age.max())
+                                .from(memberSub)
+                ))
+                .from(member)
+                .fetch();
+
+        Assertions.assertThat(result).extracting("name")
+                .containsExactlyInAnyOrder("member1", "member2", "member3", "member4");
+        Assertions.assertThat(result).extracting("userage")
+                .containsOnly(40);
+    }
+
     @Test
     void dynamicQuery_BooleanBuilder() {
         String usernameParam = "member1";
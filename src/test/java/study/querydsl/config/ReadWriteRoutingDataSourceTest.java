@@ -0,0 +1,142 @@
+package study.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamDto;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.TeamQueryRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 두 개의 H2 메모리 DB를 primary와 replica로 쓴다. 복제는 없으므로 replica 스키마는 primary에서 복사하고,
+ * 어느 DB로 갔는지는 한쪽에만 있는 데이터로 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadWriteRoutingDataSourceTest.PRIMARY_URL,
+        "app.datasource.routing.enabled=true",
+        "app.datasource.replica.url=" + ReadWriteRoutingDataSourceTest.REPLICA_URL,
+        "app.datasource.replica.lag-query=SELECT SECONDS FROM REPLICA_LAG",
+        "app.datasource.replica.max-lag=5s",
+        "app.datasource.replica.lag-check-interval=0s"
+})
+class ReadWriteRoutingDataSourceTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TeamQueryRepository teamQueryRepository;
+
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void before() throws SQLException {
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        List<String> schema = new ArrayList<>();
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement();
+             ResultSet rs = statement.executeQuery("SCRIPT NODATA")) {
+            while (rs.next()) {
+                schema.add(rs.getString(1));
+            }
+        }
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : schema) {
+                statement.execute(sql);
+            }
+            statement.execute("CREATE TABLE REPLICA_LAG (SECONDS DOUBLE)");
+            statement.execute("INSERT INTO REPLICA_LAG VALUES (0)");
+            statement.execute("INSERT INTO TEAM (TEAM_ID, NAME) VALUES (1000, 'replicaTeam')");
+        }
+    }
+
+    @AfterEach
+    void after() throws SQLException {
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement()) {
+            statement.execute("DELETE FROM MEMBER");
+            statement.execute("DELETE FROM TEAM");
+        }
+        emf.getCache().evictAll();
+    }
+
+    @Test
+    void writesGoToPrimary() throws SQLException {
+        readWrite.executeWithoutResult(status -> em.persist(new Team("primaryTeam")));
+
+        Assertions.assertThat(countTeams(PRIMARY_URL, "primaryTeam")).isEqualTo(1);
+        Assertions.assertThat(countTeams(REPLICA_URL, "primaryTeam")).isZero();
+        Assertions.assertThat(teamNames(readWrite)).containsExactly("primaryTeam");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        readWrite.executeWithoutResult(status -> em.persist(new Team("primaryTeam")));
+
+        Assertions.assertThat(teamNames(readOnly)).containsExactly("replicaTeam");
+        Assertions.assertThat(teamQueryRepository.findPageWithMembers(PageRequest.of(0, 10)).getContent())
+                .extracting(TeamDto::getName)
+                .containsExactly("replicaTeam");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() throws SQLException {
+        readWrite.executeWithoutResult(status -> em.persist(new Team("primaryTeam")));
+
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("UPDATE REPLICA_LAG SET SECONDS = 60");
+        }
+
+        Assertions.assertThat(teamNames(readOnly)).containsExactly("primaryTeam");
+    }
+
+    private List<String> teamNames(TransactionTemplate tx) {
+        return tx.execute(status -> new JPAQueryFactory(em).select(team.name).from(team).orderBy(team.id.asc()).fetch());
+    }
+
+    private int countTeams(String url, String name) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM TEAM WHERE NAME = '" + name + "'")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.service.MemberBulkService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 스트림은 스케줄러 스레드에서 조회하므로 테스트 데이터를 커밋하고 직접 정리한다. chunk 는 회원 2명씩이다.
+ */
+@SpringBootTest(properties = "app.member.stream.chunk-size=2")
+@AutoConfigureMockMvc
+class MemberSearchControllerTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    @BeforeEach
+    void before() {
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("ndjsonTeam");
+            em.persist(team);
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member("ndjson" + i, 10 * i, team));
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        memberBulkService.delete(member.username.startsWith("ndjson"));
+        tx.executeWithoutResult(status -> em.createQuery("select t from Team t where t.name = 'ndjsonTeam'", Team.class)
+                .getResultList()
+                .forEach(em::remove));
+    }
+
+    /**
+     * 회원 5명이 chunk 3개로 나뉘어도 줄마다 JSON 하나다.
+     */
+    @Test
+    void streamWritesOneJsonPerLine() throws Exception {
+        MvcResult started = mockMvc.perform(get("/members/stream").param("teamName", "ndjsonTeam"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        Assertions.assertThat(body).endsWith("\n");
+        ObjectReader reader = objectMapper.reader().with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        List<String> usernames = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            JsonNode json = reader.readTree(line);
+            usernames.add(json.get("username").asText());
+        }
+        Assertions.assertThat(usernames).containsExactly("ndjson1", "ndjson2", "ndjson3", "ndjson4", "ndjson5");
+    }
+
+}
@@ -0,0 +1,222 @@
+package study.querydsl.controller;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberRecord;
+import study.querydsl.entity.Team;
+import study.querydsl.service.MemberBulkService;
+import study.querydsl.service.MemberIngestService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 느린 클라이언트 여러 개가 동시에 한 팀의 회원 전체(MEMBERS 명)를 받을 때, 블로킹 MVC 경로(/members/export)와
+ * Flux 경로(/members/stream)의 요청 처리 중인 톰캣 스레드 수(평균), JVM 스레드 증가량, p50/p99 응답 시간을 비교한다.
+ * 기본 test 태스크에서는 제외된다. (./gradlew loadTest)
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "decorator.datasource.p6spy.enable-logging=false",
+        "logging.level.org.hibernate.SQL=warn",
+        "logging.level.org.hibernate.type=warn"
+})
+class MemberStreamLoadTest {
+
+    private static final int MEMBERS = 10_000;
+    private static final String TEAM = "loadTeam";
+    private static final int CLIENTS = 32;
+    private static final int READ_BUFFER = 8 * 1024;
+    private static final long PAUSE_PER_READ_MILLIS = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @Autowired
+    private MemberIngestService memberIngestService;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void before() {
+        tx.executeWithoutResult(status -> memberIngestService.ingest(IntStream.range(0, MEMBERS)
+                .mapToObj(i -> new MemberRecord("load" + i, i % 100, TEAM))));
+    }
+
+    @AfterEach
+    void after() {
+        memberBulkService.delete(member.username.startsWith("load"));
+        tx.executeWithoutResult(status -> em.createQuery("select t from Team t where t.name = :name", Team.class)
+                .setParameter("name", TEAM)
+                .getResultList()
+                .forEach(em::remove));
+    }
+
+    @Test
+    void compareMvcAndFlux() throws Exception {
+        // MVC 경로가 늘려 놓은 톰캣 스레드가 남아 있으므로 Flux 경로를 먼저 잰다.
+        Result flux = run("/members/stream?teamName=" + TEAM);
+        Result mvc = run("/members/export?teamName=" + TEAM);
+
+        System.out.printf("%-36s %16s %12s %12s %12s%n", "path", "avgBusyHttp", "peakThreads", "p50(ms)", "p99(ms)");
+        for (Result result : new Result[]{mvc, flux}) {
+            System.out.printf("%-36s %16.1f %12d %12d %12d%n",
+                    result.path, result.busyHttpThreads, result.peakThreads, result.p50, result.p99);
+        }
+
+        Assertions.assertThat(mvc.lines).isEqualTo((long) MEMBERS * CLIENTS);
+        Assertions.assertThat(flux.lines).isEqualTo((long) MEMBERS * CLIENTS);
+    }
+
+    private Result run(String path) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicLong busySum = new AtomicLong();
+        AtomicLong samples = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peak.accumulateAndGet(threads.getThreadCount(), Math::max);
+                busySum.addAndGet(busyHttpThreads());
+                samples.incrementAndGet();
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.start();
+
+        int baseline = threads.getThreadCount() + CLIENTS + 1;
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<long[]>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(clients.submit(() -> slowRead(path)));
+            }
+            List<Long> latencies = new ArrayList<>();
+            long lines = 0;
+            for (Future<long[]> future : futures) {
+                long[] result = future.get();
+                latencies.add(result[0]);
+                lines += result[1];
+            }
+            Collections.sort(latencies);
+            return new Result(path, (double) busySum.get() / samples.get(), peak.get() - baseline, latencies.get(latencies.size() / 2),
+                    latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1), lines);
+        } finally {
+            running.set(false);
+            sampler.join();
+            clients.shutdown();
+        }
+    }
+
+    /**
+     * 요청을 처리 중인(풀에서 작업을 기다리지 않는) 톰캣 요청 스레드 수.
+     */
+    private static int busyHttpThreads() {
+        int busy = 0;
+        for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+            if (entry.getKey().getName().startsWith("http-nio-")
+                    && entry.getKey().getName().contains("-exec-")
+                    && Arrays.stream(entry.getValue()).noneMatch(e -> e.getClassName().endsWith("TaskQueue"))) {
+                busy++;
+            }
+        }
+        return busy;
+    }
+
+    /**
+     * @return {응답 시간(ms), 받은 줄 수}
+     */
+    private long[] slowRead(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+        long start = System.nanoTime();
+        long lines = 0;
+        try (InputStream body = client.send(request, HttpResponse.BodyHandlers.ofInputStream()).body()) {
+            byte[] buffer = new byte[READ_BUFFER];
+            long unpaced = 0;
+            byte last = '\n';
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+                if (read > 0) {
+                    last = buffer[read - 1];
+                }
+                // READ_BUFFER 바이트마다 PAUSE_PER_READ_MILLIS 쉬는 대역폭 제한 클라이언트
+                unpaced += read;
+                if (unpaced >= READ_BUFFER) {
+                    Thread.sleep(PAUSE_PER_READ_MILLIS * (unpaced / READ_BUFFER));
+                    unpaced %= READ_BUFFER;
+                }
+            }
+            // export는 마지막 줄 끝에 줄바꿈이 없다.
+            if (last != '\n') {
+                lines++;
+            }
+        }
+        return new long[]{(System.nanoTime() - start) / 1_000_000, lines};
+    }
+
+    private static class Result {
+
+        private final String path;
+        private final double busyHttpThreads;
+        private final int peakThreads;
+        private final long p50;
+        private final long p99;
+        private final long lines;
+
+        Result(String path, double busyHttpThreads, int peakThreads, long p50, long p99, long lines) {
+            this.path = path;
+            this.busyHttpThreads = busyHttpThreads;
+            this.peakThreads = peakThreads;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.lines = lines;
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.service.MemberBulkService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 인덱스는 커밋된 데이터만 담으므로 롤백 트랜잭션 없이 실행하고 직접 정리한다.
+ */
+@SpringBootTest(properties = "app.member.index.enabled=true")
+class MemberIndexTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private MemberIndex memberIndex;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long teamAId;
+
+    @BeforeEach
+    void before() {
+        teamAId = tx.execute(status -> {
+            Team teamA = new Team("indexTeamA");
+            Team teamB = new Team("indexTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("index1", 10, teamA));
+            em.persist(new Member("index2", 20, teamA));
+            em.persist(new Member("index3", 30, teamB));
+            em.persist(new Member("index4", 40, teamB));
+            em.persist(new Member("index4", 41));
+            return teamA.getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        memberBulkService.delete(member.username.startsWith("index"));
+        tx.executeWithoutResult(status -> em.createQuery("select t from Team t where t.name like 'indexTeam%'", Team.class)
+                .getResultList()
+                .forEach(em::remove));
+    }
+
+    /**
+     * QuerydslBasicTest.search, subQueryGoe 처럼 eq 와 age 범위만 쓰는 조건은 인덱스에서 처리하고 DB 결과와 같다.
+     */
+    @Test
+    void servesEligibleConditionsFromIndex() {
+        double hits = hits();
+
+        Assertions.assertThat(memberRepository.findDtos(member.username.eq("index1").and(member.age.eq(10))))
+                .containsExactly(new MemberDto("index1", 10));
+        Assertions.assertThat(memberRepository.findDtos(member.username.eq("index4")))
+                .containsExactly(new MemberDto("index4", 40), new MemberDto("index4", 41));
+        Assertions.assertThat(memberRepository.findDtos(member.age.between(20, 40).and(member.username.startsWith("index"))))
+                .containsExactly(new MemberDto("index2", 20), new MemberDto("index3", 30), new MemberDto("index4", 40));
+        Assertions.assertThat(memberRepository.findDtos(member.team.id.eq(teamAId).and(member.age.gt(10))))
+                .containsExactly(new MemberDto("index2", 20));
+        Assertions.assertThat(memberRepository.findDtos(member.age.goe(30).and(member.age.lt(30)))).isEmpty();
+
+        // startsWith 는 인덱스로 처리하지 않으므로 네 번만 인덱스에서 읽었다.
+        Assertions.assertThat(hits() - hits).isEqualTo(4);
+        // 쓰기 트랜잭션 안에서는 DB로 읽는다.
+        List<MemberDto> inTransaction = tx.execute(status -> memberRepository.findDtos(member.username.eq("index4")));
+        Assertions.assertThat(inTransaction)
+                .containsExactly(new MemberDto("index4", 40), new MemberDto("index4", 41));
+        Assertions.assertThat(hits() - hits).isEqualTo(4);
+    }
+
+    @Test
+    void followsCommittedChanges() {
+        tx.executeWithoutResult(status -> em.remove(memberRepository.findByUsername("index1").get(0)));
+        tx.executeWithoutResult(status -> em.persist(new Member("index5", 50)));
+        Assertions.assertThat(memberRepository.findDtos(member.age.loe(10).and(member.username.eq("index1")))).isEmpty();
+        Assertions.assertThat(memberRepository.findDtos(member.username.eq("index5")))
+                .containsExactly(new MemberDto("index5", 50));
+
+        // 롤백된 변경은 반영하지 않는다.
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("index6", 60));
+            status.setRollbackOnly();
+        });
+        Assertions.assertThat(memberRepository.findDtos(member.username.eq("index6"))).isEmpty();
+
+        // 이벤트가 없는 벌크 update는 커밋 뒤 다시 읽는다.
+        memberBulkService.update(member.username.eq("index2"), update -> update.set(member.age, member.age.add(1)));
+        Assertions.assertThat(memberIndex.isReady()).isTrue();
+        Assertions.assertThat(memberRepository.findDtos(member.username.eq("index2")))
+                .containsExactly(new MemberDto("index2", 21));
+    }
+
+    @Test
+    void reportsFootprint() {
+        List<MemberDto> all = memberRepository.findDtos(null);
+
+        Assertions.assertThat(memberIndex.size()).isEqualTo(all.size());
+        Assertions.assertThat(memberIndex.bytesPerMember()).isPositive();
+        Assertions.assertThat(meterRegistry.get("member.index.bytes").gauge().value())
+                .isEqualTo(memberIndex.bytes());
+        Assertions.assertThat(meterRegistry.get("member.index.size").gauge().value())
+                .isEqualTo(memberIndex.size());
+    }
+
+    private double hits() {
+        return meterRegistry.get("member.index.lookups").tag("result", "hit").counter().count();
+    }
+
+}
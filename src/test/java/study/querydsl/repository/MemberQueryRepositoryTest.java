@@ -0,0 +1,176 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.KeysetPage;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberKeysetSort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.StatementCounter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.support.StatementAssertions.assertMaxStatements;
+
+@SpringBootTest
+@Transactional
+class MemberQueryRepositoryTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 20, teamB));
+        em.persist(new Member("member4", 20, teamB));
+        em.persist(new Member("member5", 40, teamB));
+    }
+
+    /**
+     * 같은 나이가 여러 명이어도 (age, id) 커서로 누락이나 중복 없이 끝까지 읽는다.
+     */
+    @Test
+    void keysetByAge() {
+        List<String> usernames = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<MemberDto> page = memberQueryRepository.findPageByKeyset(
+                    new MemberSearchCondition(), MemberKeysetSort.AGE, cursor, 2);
+            page.getContent().forEach(m -> usernames.add(m.getUsername()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        Assertions.assertThat(pages).isEqualTo(3);
+        Assertions.assertThat(usernames).containsExactly("member1", "member2", "member3", "member4", "member5");
+    }
+
+    @Test
+    void keysetByUsername() {
+        em.persist(new Member(null, 50));
+
+        KeysetPage<MemberDto> first = memberQueryRepository.findPageByKeyset(
+                new MemberSearchCondition(), MemberKeysetSort.USERNAME, null, 3);
+        KeysetPage<MemberDto> second = memberQueryRepository.findPageByKeyset(
+                new MemberSearchCondition(), MemberKeysetSort.USERNAME, first.getNextCursor(), 3);
+
+        Assertions.assertThat(first.getContent()).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        Assertions.assertThat(second.getContent()).extracting("username")
+                .containsExactly("member4", "member5");
+        Assertions.assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void keysetRejectsCursorOfOtherSort() {
+        KeysetPage<MemberDto> page = memberQueryRepository.findPageByKeyset(
+                new MemberSearchCondition(), MemberKeysetSort.AGE, null, 1);
+
+        Assertions.assertThatThrownBy(() -> memberQueryRepository.findPageByKeyset(
+                        new MemberSearchCondition(), MemberKeysetSort.USERNAME, page.getNextCursor(), 1))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class);
+    }
+
+    @Test
+    void keysetRejectsNonPositiveSize() {
+        Assertions.assertThatThrownBy(() -> memberQueryRepository.findPageByKeyset(
+                        new MemberSearchCondition(), MemberKeysetSort.AGE, null, 0))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("size must be positive");
+    }
+
+    @Test
+    void searchPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        Page<MemberTeamDto> first = memberQueryRepository.searchPage(condition, PageRequest.of(0, 2));
+        Page<MemberTeamDto> last = memberQueryRepository.searchPage(condition, PageRequest.of(1, 2));
+
+        Assertions.assertThat(first.getTotalElements()).isEqualTo(3L);
+        Assertions.assertThat(first.getContent()).extracting("username").containsExactly("member3", "member4");
+        Assertions.assertThat(last.getTotalElements()).isEqualTo(3L);
+        Assertions.assertThat(last.getContent()).extracting("teamName").containsExactly("teamB");
+    }
+
+    /**
+     * 첫 페이지가 page size보다 작으면 COUNT 없이 content 크기가 곧 전체 건수가 된다.
+     */
+    @Test
+    void searchPageWithoutCount() {
+        Page<MemberTeamDto> page = memberQueryRepository.searchPage(new MemberSearchCondition(), PageRequest.of(0, 10));
+
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(5L);
+        Assertions.assertThat(page.getTotalPages()).isEqualTo(1);
+    }
+
+    @Test
+    void findWithTeamInSingleStatement() {
+        em.flush();
+        em.clear();
+
+        List<String> teamNames = assertMaxStatements(statementCounter, 1, () -> {
+            List<String> names = new ArrayList<>();
+            memberQueryRepository.findWithTeam(new MemberSearchCondition()).forEach(m -> names.add(m.getTeam().getName()));
+            return names;
+        });
+
+        Assertions.assertThat(teamNames).containsExactly("teamA", "teamA", "teamB", "teamB", "teamB");
+    }
+
+    /**
+     * 엔티티 그래프 없이 지연 로딩해도 팀은 한 번의 IN 쿼리로 한꺼번에 초기화된다. (default_batch_fetch_size)
+     */
+    @Test
+    void lazyTeamsAreBatchFetched() {
+        em.flush();
+        em.clear();
+
+        assertMaxStatements(statementCounter, 2, () -> {
+            List<Member> members = new JPAQueryFactory(em).selectFrom(member).fetch();
+            members.forEach(m -> m.getTeam().getName());
+        });
+    }
+
+    @Test
+    void lazyTeamMembersAreBatchFetched() {
+        em.flush();
+        em.clear();
+
+        assertMaxStatements(statementCounter, 2, () -> {
+            List<Team> teams = new JPAQueryFactory(em).selectFrom(team).fetch();
+            teams.forEach(t -> t.getMembers().size());
+        });
+    }
+
+}
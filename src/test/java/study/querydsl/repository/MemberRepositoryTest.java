@@ -0,0 +1,132 @@
+package study.querydsl.repository;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAgeStatsDto;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+@SpringBootTest
+@Transactional
+class MemberRepositoryTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamA));
+        memberRepository.save(new Member("member3", 30, teamB));
+        memberRepository.save(new Member("member4", 40, teamB));
+        memberRepository.save(new Member("member5", 40, null));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void basic() {
+        Assertions.assertThat(memberRepository.findByUsername("member1"))
+                .extracting("age").containsExactly(10);
+    }
+
+    @Test
+    void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        condition.setAgeLoe(40);
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        Assertions.assertThat(result).extracting("username").containsExactly("member3", "member4");
+    }
+
+    @Test
+    void searchDtoPage() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberDto> page = memberRepository.searchDtoPage(condition,
+                PageRequest.of(0, 3, Sort.by(Sort.Order.desc("age"), Sort.Order.asc("username"))));
+
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(4L);
+        Assertions.assertThat(page.getContent()).extracting("username")
+                .containsExactly("member4", "member5", "member3");
+    }
+
+    @Test
+    void searchDtoPageUnsupportedSort() {
+        Assertions.assertThatThrownBy(() -> memberRepository.searchDtoPage(new MemberSearchCondition(),
+                        PageRequest.of(0, 3, Sort.by("team"))))
+                .hasMessageContaining("unsupported sort property");
+    }
+
+    @Test
+    void ageStats() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        MemberAgeStatsDto stats = memberRepository.ageStats(condition);
+
+        Assertions.assertThat(stats.getCount()).isEqualTo(2L);
+        Assertions.assertThat(stats.getAverageAge()).isCloseTo(15.0, Offset.offset(0.001));
+        Assertions.assertThat(stats.getMinAge()).isEqualTo(10);
+        Assertions.assertThat(stats.getMaxAge()).isEqualTo(20);
+
+        condition.setTeamName("noTeam");
+        MemberAgeStatsDto empty = memberRepository.ageStats(condition);
+        Assertions.assertThat(empty.getCount()).isZero();
+        Assertions.assertThat(empty.getAverageAge()).isNull();
+    }
+
+    @Test
+    void findOldest() {
+        Assertions.assertThat(memberRepository.findOldest())
+                .extracting("username").containsExactly("member4", "member5");
+    }
+
+    /**
+     * subQueryTest1 과 달리 전체가 아닌 팀 안에서 최소/최대를 찾는다. 팀이 없는 member5 는 빠진다.
+     */
+    @Test
+    void findTeamAgeExtremes() {
+        Team teamB = memberRepository.findByUsername("member3").get(0).getTeam();
+        // 동갑인 최연소 회원은 모두 포함한다. 뷰 조회 전에 flush 된다.
+        memberRepository.save(new Member("member6", 30, teamB));
+        memberRepository.save(new Member("member7", 35, teamB));
+
+        Assertions.assertThat(memberRepository.findTeamAgeExtremes())
+                .extracting("username", "age", "teamName")
+                .containsExactly(
+                        Assertions.tuple("member1", 10, "teamA"),
+                        Assertions.tuple("member2", 20, "teamA"),
+                        Assertions.tuple("member3", 30, "teamB"),
+                        Assertions.tuple("member6", 30, "teamB"),
+                        Assertions.tuple("member4", 40, "teamB"));
+    }
+
+}
@@ -0,0 +1,91 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+@SpringBootTest
+@Transactional
+class MemberSearchRepositoryTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private MemberSearchRepository memberSearchRepository;
+
+    @Autowired
+    private MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50, null));
+    }
+
+    /**
+     * 조건의 모양과 관계없이 searchPage 와 같은 결과를 돌려준다.
+     */
+    @Test
+    void sameResultAsSearchPage() {
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((shape & 1) != 0 ? "member3" : null);
+            condition.setTeamName((shape & 2) != 0 ? "teamB" : null);
+            condition.setAgeGoe((shape & 4) != 0 ? 20 : null);
+            condition.setAgeLoe((shape & 8) != 0 ? 40 : null);
+
+            List<MemberTeamDto> expected = memberQueryRepository.searchPage(condition, PageRequest.of(0, 100)).getContent();
+
+            Assertions.assertThat(memberSearchRepository.search(condition, 100))
+                    .as("shape %d", shape)
+                    .isEqualTo(expected);
+        }
+        Assertions.assertThat(memberSearchRepository.cacheSize()).isEqualTo(16);
+    }
+
+    /**
+     * 값만 다르고 모양이 같은 조건은 캐시된 JPQL을 재사용한다.
+     */
+    @Test
+    void reusesJpqlForSameShape() {
+        MemberSearchCondition first = new MemberSearchCondition();
+        first.setTeamName("teamA");
+        MemberSearchCondition second = new MemberSearchCondition();
+        second.setTeamName("teamB");
+
+        memberSearchRepository.search(first, 10);
+        double hitsBefore = meterRegistry.counter("member.search.query.cache", "result", "hit").count();
+        List<MemberTeamDto> result = memberSearchRepository.search(second, 10);
+
+        Assertions.assertThat(result).extracting("username").containsExactly("member3", "member4");
+        Assertions.assertThat(meterRegistry.counter("member.search.query.cache", "result", "hit").count())
+                .isEqualTo(hitsBefore + 1);
+        Assertions.assertThat(memberSearchRepository.hitRatio()).isGreaterThan(0);
+    }
+
+}
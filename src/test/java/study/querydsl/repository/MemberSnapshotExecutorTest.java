@@ -0,0 +1,176 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.service.MemberBulkService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 스냅샷은 커밋된 데이터만 읽으므로 롤백 트랜잭션 없이 실행하고 직접 정리한다.
+ * 조각 크기를 작게 해 병렬 평가 경로를 탄다.
+ */
+@SpringBootTest(properties = "app.member.snapshot.parallel-chunk-size=2")
+class MemberSnapshotExecutorTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @Autowired
+    private MemberSnapshotExecutor executor;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void before() {
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("snapTeamA");
+            Team teamB = new Team("snapTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("snap1", 10, teamA));
+            em.persist(new Member("snap2", 20, teamA));
+            em.persist(new Member("snap3", 30, teamB));
+            em.persist(new Member("snap4", 40, teamB));
+            em.persist(new Member("snap5", 50));
+        });
+        executor.invalidate();
+    }
+
+    @AfterEach
+    void after() {
+        memberBulkService.delete(member.username.startsWith("snap"));
+        tx.executeWithoutResult(status -> em.createQuery("select t from Team t where t.name like 'snapTeam%'", Team.class)
+                .getResultList()
+                .forEach(em::remove));
+    }
+
+    /**
+     * searchMember1 처럼 BooleanBuilder로 만든 조건도 메모리에서 평가하고, JPA와 같은 결과를 낸다.
+     */
+    @Test
+    void evaluatesInMemory() {
+        BooleanBuilder builder = new BooleanBuilder();
+        builder.and(member.username.eq("snap1"));
+        builder.and(member.age.eq(10));
+
+        assertInMemory(builder, "snap1");
+        assertInMemory(team.name.eq("snapTeamB"), "snap3", "snap4");
+        assertInMemory(member.team.name.eq("snapTeamA").and(member.age.goe(20)), "snap2");
+        assertInMemory(snap(member.age.between(20, 30).or(member.username.endsWith("5"))), "snap2", "snap3", "snap5");
+        assertInMemory(snap(member.team.isNull()), "snap5");
+        assertInMemory(snap(member.age.in(10, 40).not()), "snap2", "snap3", "snap5");
+
+        Assertions.assertThat(executor.search(member.username.eq("snap3")))
+                .extracting("teamName").containsExactly("snapTeamB");
+    }
+
+    @Test
+    void fallsBackToJpa() {
+        QMember memberSub = new QMember("memberSub");
+
+        // or 아래의 팀 조건: SQL은 팀이 없는 회원도 age 조건으로 고른다.
+        assertFallback(snap(team.name.eq("snapTeamA").or(member.age.goe(50))), "snap1", "snap2", "snap5");
+        assertFallback(snap(team.name.isNull()), "snap5");
+        assertFallback(snap(member.age.eq(select(memberSub.age.max()).from(memberSub))), "snap5");
+
+        // 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 변경이 보여야 하므로 JPA로 읽는다.
+        List<MemberTeamDto> inTransaction = tx.execute(status -> {
+            em.persist(new Member("snap6", 60));
+            List<MemberTeamDto> result = executor.search(member.username.eq("snap6"));
+            status.setRollbackOnly();
+            return result;
+        });
+        Assertions.assertThat(inTransaction).extracting("username").containsExactly("snap6");
+    }
+
+    /**
+     * 커밋된 엔티티 변경과 벌크 연산 뒤에는 ttl 을 기다리지 않고 다시 읽는다.
+     */
+    @Test
+    void reloadsAfterChanges() {
+        assertInMemory(member.username.eq("snap6"));
+
+        tx.executeWithoutResult(status -> em.persist(new Member("snap6", 60)));
+        assertInMemory(member.username.eq("snap6"), "snap6");
+
+        memberBulkService.update(member.username.eq("snap6"), update -> update.set(member.age, 61));
+        assertInMemory(member.age.eq(61), "snap6");
+
+        tx.executeWithoutResult(status -> em.remove(em.createQuery("select m from Member m where m.username = 'snap6'", Member.class)
+                .getSingleResult()));
+        assertInMemory(member.age.eq(61));
+    }
+
+    /**
+     * MemberRepository.search 는 스냅샷으로 처리한다.
+     */
+    @Test
+    void repositorySearchUsesSnapshot() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("snapTeamA");
+        condition.setAgeGoe(15);
+
+        double hits = count("hit");
+        Assertions.assertThat(memberRepository.search(condition)).extracting("username").containsExactly("snap2");
+        Assertions.assertThat(count("hit") - hits).isEqualTo(1);
+    }
+
+    private void assertInMemory(Predicate condition, String... usernames) {
+        double hits = count("hit");
+        Assertions.assertThat(executor.search(condition)).extracting("username").containsExactly((Object[]) usernames);
+        Assertions.assertThat(count("hit") - hits).isEqualTo(1);
+        Assertions.assertThat(jpa(condition)).extracting("username").containsExactly((Object[]) usernames);
+    }
+
+    private void assertFallback(Predicate condition, String... usernames) {
+        double fallbacks = count("fallback");
+        Assertions.assertThat(executor.search(condition)).extracting("username").containsExactly((Object[]) usernames);
+        Assertions.assertThat(count("fallback") - fallbacks).isEqualTo(1);
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서 호출하면 항상 JPA로 조회한다.
+     */
+    private List<MemberTeamDto> jpa(Predicate condition) {
+        return tx.execute(status -> executor.search(condition));
+    }
+
+    private static Predicate snap(Predicate condition) {
+        return member.username.startsWith("snap").and(condition);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("member.snapshot.queries").tag("result", result).counter().count();
+    }
+
+}
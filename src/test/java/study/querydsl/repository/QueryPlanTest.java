@@ -0,0 +1,125 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.ExplainPlans;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 자주 쓰는 쿼리 모양이 Flyway 마이그레이션의 인덱스를 타는지 H2 실행 계획으로 확인한다.
+ */
+@SpringBootTest
+@Transactional
+class QueryPlanTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private ExplainPlans explainPlans;
+
+    @Autowired
+    private MemberQueryRepository memberQueryRepository;
+
+    private JPAQueryFactory query;
+
+    @BeforeEach
+    void before() {
+        query = new JPAQueryFactory(em);
+        for (int t = 0; t < 10; t++) {
+            Team team = new Team("team" + t);
+            em.persist(team);
+            for (int m = 0; m < 50; m++) {
+                em.persist(new Member("member" + (t * 50 + m), m, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * QuerydslBasicTest.search
+     */
+    @Test
+    void usernameAndAge() {
+        String plan = explainPlans.explain(() -> query
+                .selectFrom(member)
+                .where(member.username.eq("member1"), member.age.between(10, 30))
+                .fetch());
+
+        Assertions.assertThat(plan).contains("IDX_MEMBER_USERNAME_ID").doesNotContain("tableScan");
+    }
+
+    /**
+     * QuerydslBasicTest.sort
+     */
+    @Test
+    void ageSorted() {
+        String plan = explainPlans.explain(() -> query
+                .selectFrom(member)
+                .where(member.age.eq(10))
+                .orderBy(member.age.desc(), member.username.asc().nullsLast())
+                .fetch());
+
+        Assertions.assertThat(plan).contains("IDX_MEMBER_AGE_ID").doesNotContain("tableScan");
+    }
+
+    /**
+     * 팀 이름 + 나이 조건 검색 (searchPage, MemberSearchRepository)
+     */
+    @Test
+    void teamNameAndAge() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+        condition.setAgeGoe(40);
+
+        String plan = explainPlans.explain(() -> memberQueryRepository.findWithTeam(condition));
+
+        Assertions.assertThat(plan).contains("UK_TEAM_NAME", "IDX_MEMBER_TEAM_AGE").doesNotContain("tableScan");
+    }
+
+    /**
+     * QuerydslBasicTest.theta_join: 한쪽은 전체를 읽더라도 다른 쪽은 인덱스로 찾아야 한다.
+     */
+    @Test
+    void thetaJoin() {
+        String plan = explainPlans.explain(() -> query
+                .select(member)
+                .from(member, team)
+                .where(member.username.eq(team.name))
+                .fetch());
+
+        Assertions.assertThat(plan).containsAnyOf("UK_TEAM_NAME", "IDX_MEMBER_USERNAME_ID");
+        Assertions.assertThat(plan.split("tableScan", -1).length - 1).isLessThanOrEqualTo(1);
+    }
+
+    /**
+     * 팀별 최고령 회원 (서브쿼리가 팀마다 IDX_MEMBER_TEAM_AGE를 탄다)
+     */
+    @Test
+    void oldestPerTeam() {
+        String plan = explainPlans.explain(() -> query
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(team.name.eq("team1"), member.age.eq(
+                        JPAExpressions.select(member.age.max()).from(member).where(member.team.eq(team))))
+                .fetch());
+
+        Assertions.assertThat(plan).contains("UK_TEAM_NAME", "IDX_MEMBER_TEAM_AGE").doesNotContain("tableScan");
+    }
+
+}
@@ -0,0 +1,135 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.StatementCounter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.support.StatementAssertions.assertMaxStatements;
+
+/**
+ * 2차 캐시는 커밋된 데이터만 다루므로 이 테스트는 롤백 트랜잭션 없이 실행하고 직접 정리한다.
+ */
+@SpringBootTest
+class TeamQueryRepositoryTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @Autowired
+    private TeamQueryRepository teamQueryRepository;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void before() {
+        tx.executeWithoutResult(status -> em.persist(new Team("cachedTeam")));
+        emf.getCache().evictAll();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .delete(team)
+                .where(team.name.in("cachedTeam", "renamedTeam"))
+                .execute());
+    }
+
+    @Test
+    void findByNameHitsCache() {
+        Team first = teamQueryRepository.findByName("cachedTeam");
+        Team second = teamQueryRepository.findByName("cachedTeam");
+
+        Assertions.assertThat(second.getId()).isEqualTo(first.getId());
+        Assertions.assertThat(statistics.getQueryExecutionCount()).isEqualTo(1L);
+        Assertions.assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1L);
+        Assertions.assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1L);
+    }
+
+    /**
+     * Querydsl 벌크 update 도 TEAM 테이블의 쿼리 캐시와 Team 2차 캐시를 무효화한다.
+     */
+    @Test
+    void bulkUpdateInvalidatesCache() {
+        Assertions.assertThat(teamQueryRepository.findByName("cachedTeam")).isNotNull();
+
+        tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(team)
+                .set(team.name, "renamedTeam")
+                .where(team.name.eq("cachedTeam"))
+                .execute());
+
+        Assertions.assertThat(teamQueryRepository.findByName("cachedTeam")).isNull();
+        Assertions.assertThat(teamQueryRepository.findByName("renamedTeam").getName()).isEqualTo("renamedTeam");
+        Assertions.assertThat(statistics.getQueryCacheHitCount()).isZero();
+    }
+
+    /**
+     * 팀 id 페이징 + fetch join 두 단계로, 페이지 크기만큼의 팀과 그 회원만 읽는다.
+     */
+    @Test
+    @Transactional
+    void findPageWithMembers() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.flush();
+        em.clear();
+
+        long total = new JPAQueryFactory(em).select(team.count()).from(team).fetchOne();
+        int pageSize = 2;
+        int lastPage = (int) ((total - 1) / pageSize);
+
+        Page<TeamDto> page = assertMaxStatements(statementCounter, 3,
+                () -> teamQueryRepository.findPageWithMembers(PageRequest.of(lastPage - 1, pageSize)));
+        Page<TeamDto> last = teamQueryRepository.findPageWithMembers(PageRequest.of(lastPage, pageSize));
+
+        List<TeamDto> teams = new ArrayList<>(page.getContent());
+        teams.addAll(last.getContent());
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(total);
+        Assertions.assertThat(page.getContent()).hasSize(pageSize);
+        Assertions.assertThat(teams.subList(teams.size() - 3, teams.size()))
+                .extracting("name").containsExactly("teamA", "teamB", "teamC");
+        Assertions.assertThat(teams.get(teams.size() - 3).getMembers())
+                .extracting("username").containsExactly("member1", "member2");
+        Assertions.assertThat(teams.get(teams.size() - 1).getMembers()).isEmpty();
+    }
+
+}
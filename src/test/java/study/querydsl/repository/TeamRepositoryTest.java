@@ -0,0 +1,64 @@
+package study.querydsl.repository;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamAgeDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        teamRepository.save(new Team("teamC"));
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void findAverageAges() {
+        List<TeamAgeDto> result = teamRepository.findAverageAges().stream()
+                .filter(dto -> List.of("teamA", "teamB", "teamC").contains(dto.getTeamName()))
+                .collect(Collectors.toList());
+
+        Assertions.assertThat(result).extracting("teamName").containsExactly("teamA", "teamB", "teamC");
+        Assertions.assertThat(result.get(0).getAverageAge()).isCloseTo(15.0, Offset.offset(0.001));
+        Assertions.assertThat(result.get(1).getAverageAge()).isCloseTo(35.0, Offset.offset(0.001));
+        Assertions.assertThat(result.get(2).getAverageAge()).isNull();
+    }
+
+    @Test
+    void findWithMembers() {
+        Team team = teamRepository.findWithMembers("teamB");
+
+        Assertions.assertThat(Hibernate.isInitialized(team.getMembers())).isTrue();
+        Assertions.assertThat(team.getMembers()).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+    }
+
+}
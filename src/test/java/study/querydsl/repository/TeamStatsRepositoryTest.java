@@ -0,0 +1,160 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamStats;
+import study.querydsl.service.MemberBulkService;
+import study.querydsl.service.TeamStatsReconciler;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * TEAM_STATS는 커밋 직전에 갱신되므로 이 테스트는 롤백 트랜잭션 없이 실행하고 직접 정리한다.
+ */
+@SpringBootTest
+class TeamStatsRepositoryTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @Autowired
+    private TeamStatsRepository teamStatsRepository;
+
+    @Autowired
+    private TeamStatsReconciler teamStatsReconciler;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    private Long teamAId;
+    private Long teamBId;
+
+    @BeforeEach
+    void before() {
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("statsTeamA");
+            Team teamB = new Team("statsTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("stats1", 10, teamA));
+            em.persist(new Member("stats2", 20, teamA));
+            em.persist(new Member("stats3", 30, teamB));
+            em.persist(new Member("stats4", 40, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    /**
+     * 팀을 지우면 TeamStatsMaintainer가 그 팀의 통계 행도 지운다.
+     */
+    @AfterEach
+    void after() {
+        memberBulkService.delete(member.username.startsWith("stats"));
+        tx.executeWithoutResult(status -> em.createQuery("select t from Team t where t.name like 'statsTeam%'", Team.class)
+                .getResultList()
+                .forEach(em::remove));
+    }
+
+    @Test
+    void insert() {
+        assertStats("statsTeamA", 2, 30, 10, 20);
+        assertStats("statsTeamB", 2, 70, 30, 40);
+        Assertions.assertThat(teamStatsRepository.findByTeamName("statsTeamA").getAverageAge()).isEqualTo(15.0);
+    }
+
+    @Test
+    void delete() {
+        tx.executeWithoutResult(status -> em.remove(new JPAQueryFactory(em)
+                .selectFrom(member)
+                .where(member.username.eq("stats1"))
+                .fetchOne()));
+
+        assertStats("statsTeamA", 1, 20, 20, 20);
+        assertStats("statsTeamB", 2, 70, 30, 40);
+    }
+
+    @Test
+    void newTeamAndRollback() {
+        tx.executeWithoutResult(status -> {
+            Team teamC = new Team("statsTeamC");
+            em.persist(teamC);
+            em.persist(new Member("stats5", 50, teamC));
+            em.persist(new Member("stats6", 60, em.find(Team.class, teamBId)));
+        });
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("stats7", 70, em.find(Team.class, teamBId)));
+            status.setRollbackOnly();
+        });
+
+        assertStats("statsTeamB", 3, 130, 30, 60);
+        assertStats("statsTeamC", 1, 50, 50, 50);
+    }
+
+    /**
+     * 팀을 저장할 때 통계 행이 생기므로 첫 회원을 넣는 트랜잭션도 UPDATE 만 한다.
+     */
+    @Test
+    void emptyTeamHasStatsRow() {
+        Long teamDId = tx.execute(status -> {
+            Team teamD = new Team("statsTeamD");
+            em.persist(teamD);
+            return teamD.getId();
+        });
+
+        TeamStats stats = tx.execute(status -> em.find(TeamStats.class, teamDId));
+        Assertions.assertThat(stats).isNotNull();
+        Assertions.assertThat(stats.getMemberCount()).isZero();
+        Assertions.assertThat(stats.getMinAge()).isNull();
+
+        tx.executeWithoutResult(status -> em.persist(new Member("stats8", 80, em.find(Team.class, teamDId))));
+        assertStats("statsTeamD", 1, 80, 80, 80);
+    }
+
+    @Test
+    void bulkUpdate() {
+        memberBulkService.update(member.team.id.eq(teamBId), update -> update.set(member.age, member.age.add(1)));
+
+        assertStats("statsTeamA", 2, 30, 10, 20);
+        assertStats("statsTeamB", 2, 72, 31, 41);
+    }
+
+    @Test
+    void reconcile() {
+        Assertions.assertThat(teamStatsReconciler.reconcile()).doesNotContain(teamAId, teamBId);
+
+        tx.executeWithoutResult(status -> {
+            new JPAQueryFactory(em).update(member).set(member.age, 99).where(member.team.id.eq(teamBId)).execute();
+            em.createNativeQuery("update TEAM_STATS set MEMBER_COUNT = 99 where TEAM_ID = " + teamAId).executeUpdate();
+        });
+
+        Assertions.assertThat(teamStatsReconciler.reconcile()).contains(teamAId, teamBId);
+        assertStats("statsTeamA", 2, 30, 10, 20);
+        assertStats("statsTeamB", 2, 198, 99, 99);
+    }
+
+    private void assertStats(String teamName, long count, long ageSum, int minAge, int maxAge) {
+        TeamStatsDto stats = teamStatsRepository.findByTeamName(teamName);
+        Assertions.assertThat(stats.getMemberCount()).as("count of %s", teamName).isEqualTo(count);
+        Assertions.assertThat(stats.getAgeSum()).as("sum of %s", teamName).isEqualTo(ageSum);
+        Assertions.assertThat(stats.getMinAge()).as("min of %s", teamName).isEqualTo(minAge);
+        Assertions.assertThat(stats.getMaxAge()).as("max of %s", teamName).isEqualTo(maxAge);
+    }
+
+}
@@ -0,0 +1,154 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.BulkJobResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.TeamStatsRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * chunk 마다 커밋하므로 롤백 트랜잭션 없이 실행하고 직접 정리한다. chunk 는 회원 2명씩이다.
+ */
+@SpringBootTest(properties = "app.member.bulk-job.chunk-size=2")
+class MemberBulkJobServiceTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private MemberBulkJobService memberBulkJobService;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    @Autowired
+    private TeamStatsRepository teamStatsRepository;
+
+    private JPAQueryFactory query;
+
+    @BeforeEach
+    void before() {
+        query = new JPAQueryFactory(em);
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("bulkJobTeam");
+            em.persist(team);
+            for (int i = 1; i <= 10; i++) {
+                em.persist(new Member("bulkjob" + i, 10 + i, team));
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        memberBulkService.delete(member.username.startsWith("bulkjob"));
+        tx.executeWithoutResult(status -> {
+            em.createQuery("select t from Team t where t.name = 'bulkJobTeam'", Team.class)
+                    .getResultList()
+                    .forEach(em::remove);
+            jdbc.update("delete from BULK_JOB_CHUNK where JOB_ID like 'test-%'");
+            jdbc.update("delete from BULK_JOB where JOB_ID like 'test-%'");
+        });
+    }
+
+    @Test
+    void updatesInChunks() {
+        BulkJobResult result = memberBulkJobService.update("test-add", member.username.startsWith("bulkjob"),
+                update -> update.set(member.age, member.age.add(1)));
+
+        Assertions.assertThat(result.getRows()).isEqualTo(10);
+        Assertions.assertThat(result.getTotalRows()).isEqualTo(10);
+        Assertions.assertThat(result.getChunks()).isGreaterThanOrEqualTo(5);
+        Assertions.assertThat(result.getRowsPerSecond()).isPositive();
+        Assertions.assertThat(ages()).containsExactly(12, 13, 14, 15, 16, 17, 18, 19, 20, 21);
+        Assertions.assertThat(teamStatsRepository.findByTeamName("bulkJobTeam").getAgeSum()).isEqualTo(165);
+        Assertions.assertThat(jdbc.queryForObject("select STATUS from BULK_JOB where JOB_ID = 'test-add'", String.class))
+                .isEqualTo("DONE");
+
+        // 끝난 작업을 다시 실행해도 아무것도 바뀌지 않는다.
+        BulkJobResult again = memberBulkJobService.update("test-add", member.username.startsWith("bulkjob"),
+                update -> update.set(member.age, member.age.add(1)));
+        Assertions.assertThat(again.getRows()).isZero();
+        Assertions.assertThat(again.getTotalRows()).isEqualTo(10);
+        Assertions.assertThat(ages()).containsExactly(12, 13, 14, 15, 16, 17, 18, 19, 20, 21);
+    }
+
+    /**
+     * 실패한 작업을 같은 jobId 로 다시 실행하면 커밋되지 않은 chunk 만 실행하므로 age + 1 이 한 번씩만 적용된다.
+     */
+    @Test
+    void resumesAfterFailure() {
+        AtomicInteger calls = new AtomicInteger();
+        Assertions.assertThatThrownBy(() -> memberBulkJobService.update("test-resume", member.username.startsWith("bulkjob"),
+                        update -> {
+                            if (calls.incrementAndGet() == 3) {
+                                throw new IllegalStateException("simulated crash");
+                            }
+                            update.set(member.age, member.age.add(1));
+                        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("simulated crash");
+        Assertions.assertThat(jdbc.queryForObject("select STATUS from BULK_JOB where JOB_ID = 'test-resume'", String.class))
+                .isEqualTo("FAILED");
+
+        BulkJobResult result = memberBulkJobService.update("test-resume", member.username.startsWith("bulkjob"),
+                update -> update.set(member.age, member.age.add(1)));
+
+        Assertions.assertThat(result.getResumedChunks()).isPositive();
+        Assertions.assertThat(result.getRows()).isLessThan(10);
+        Assertions.assertThat(result.getTotalRows()).isEqualTo(10);
+        Assertions.assertThat(ages()).containsExactly(12, 13, 14, 15, 16, 17, 18, 19, 20, 21);
+    }
+
+    @Test
+    void deletesAndGuardsJobIdentity() {
+        BulkJobResult result = memberBulkJobService.delete("test-delete", member.username.in("bulkjob1", "bulkjob10"));
+
+        Assertions.assertThat(result.getRows()).isEqualTo(2);
+        Assertions.assertThat(ages()).hasSize(8);
+        Assertions.assertThat(teamStatsRepository.findByTeamName("bulkJobTeam").getMemberCount()).isEqualTo(8);
+
+        // 같은 jobId 를 다른 조건으로 실행하거나 트랜잭션 안에서 실행할 수 없다.
+        Assertions.assertThatThrownBy(() -> memberBulkJobService.delete("test-delete", member.username.eq("bulkjob2")))
+                .isInstanceOf(IllegalStateException.class);
+        Assertions.assertThatThrownBy(() -> tx.executeWithoutResult(status ->
+                        memberBulkJobService.delete("test-in-transaction", member.username.eq("bulkjob2"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        Assertions.assertThatThrownBy(() -> new MemberBulkJobService(null, null, null, null, null, null, null, null, 0, 2, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("app.member.bulk-job.chunk-size");
+        Assertions.assertThatThrownBy(() -> new MemberBulkJobService(null, null, null, null, null, null, null, null, 1000, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("app.member.bulk-job.parallelism");
+    }
+
+    private List<Integer> ages() {
+        return query.select(member.age).from(member).where(member.username.startsWith("bulkjob"))
+                .orderBy(member.age.asc()).fetch();
+    }
+
+}
@@ -0,0 +1,91 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberBulkServiceTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    private JPAQueryFactory query;
+
+    @BeforeEach
+    void before() {
+        query = new JPAQueryFactory(em);
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    /**
+     * em.clear() 없이도 변경된 회원은 DB 값을 다시 읽고, 영향이 없는 회원은 영속성 컨텍스트에 그대로 남는다.
+     */
+    @Test
+    void updateEvictsOnlyAffectedMembers() {
+        List<Member> before = query.selectFrom(member).orderBy(member.age.asc()).fetch();
+
+        long count = memberBulkService.update(member.age.lt(28), update -> update.set(member.age, member.age.add(10)));
+
+        Assertions.assertThat(count).isEqualTo(2L);
+        Assertions.assertThat(em.contains(before.get(0))).isFalse();
+        Assertions.assertThat(em.contains(before.get(1))).isFalse();
+        Assertions.assertThat(em.contains(before.get(2))).isTrue();
+        Assertions.assertThat(em.contains(before.get(3))).isTrue();
+
+        List<Member> after = query.selectFrom(member).orderBy(member.username.asc()).fetch();
+        Assertions.assertThat(after).extracting("age").containsExactly(20, 30, 30, 40);
+        Assertions.assertThat(after.get(2)).isSameAs(before.get(2));
+    }
+
+    @Test
+    void updateInChunks() {
+        long count = memberBulkService.updateInChunks(member.age.goe(20),
+                update -> update.set(member.age, member.age.multiply(2)), 1);
+
+        Assertions.assertThat(count).isEqualTo(3L);
+        Assertions.assertThat(query.select(member.age).from(member).orderBy(member.age.asc()).fetch())
+                .containsExactly(10, 40, 60, 80);
+
+        Assertions.assertThatThrownBy(() -> memberBulkService.updateInChunks(member.age.goe(20),
+                        update -> update.set(member.age, member.age.multiply(2)), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void delete() {
+        Member member1 = query.selectFrom(member).where(member.username.eq("member1")).fetchOne();
+
+        long count = memberBulkService.delete(member.age.gt(18));
+
+        Assertions.assertThat(count).isEqualTo(3L);
+        Assertions.assertThat(em.contains(member1)).isTrue();
+        Assertions.assertThat(query.selectFrom(member).fetch()).containsExactly(member1);
+    }
+
+}
@@ -0,0 +1,89 @@
+package study.querydsl.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberDashboardDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 집계 쿼리는 다른 스레드의 트랜잭션에서 실행되므로 테스트 데이터를 커밋하고 직접 정리한다.
+ * DB에 다른 데이터가 있을 수 있으므로 넣기 전의 집계를 기준으로 비교한다.
+ */
+@SpringBootTest
+class MemberDashboardServiceTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @Autowired
+    private MemberDashboardService memberDashboardService;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    private MemberDashboardDto before;
+
+    @BeforeEach
+    void before() {
+        before = memberDashboardService.dashboard();
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("dashboardTeamA");
+            Team teamB = new Team("dashboardTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("dashboard1", 10, teamA));
+            em.persist(new Member("dashboard2", 20, teamA));
+            em.persist(new Member("dashboard3", 30, teamB));
+        });
+    }
+
+    @AfterEach
+    void after() {
+        memberBulkService.delete(member.username.startsWith("dashboard"));
+        tx.executeWithoutResult(status -> em.createQuery("select t from Team t where t.name like 'dashboardTeam%'", Team.class)
+                .getResultList()
+                .forEach(em::remove));
+    }
+
+    @Test
+    void dashboard() {
+        MemberDashboardDto dashboard = memberDashboardService.dashboard();
+
+        long memberCount = before.getMemberCount();
+        Assertions.assertThat(dashboard.getMemberCount()).isEqualTo(memberCount + 3);
+        Assertions.assertThat(dashboard.getTeamCount()).isEqualTo(before.getTeamCount() + 2);
+        Assertions.assertThat(dashboard.getMinAge()).isEqualTo(before.getMinAge() == null ? 10 : Math.min(before.getMinAge(), 10));
+        Assertions.assertThat(dashboard.getMaxAge()).isEqualTo(before.getMaxAge() == null ? 30 : Math.max(before.getMaxAge(), 30));
+        double ageSum = memberCount == 0 ? 0 : before.getAverageAge() * memberCount;
+        Assertions.assertThat(dashboard.getAverageAge())
+                .isCloseTo((ageSum + 60) / (memberCount + 3), Assertions.within(1e-6));
+        Assertions.assertThat(dashboard.getMemberCountByTeam())
+                .containsEntry("dashboardTeamA", 2L)
+                .containsEntry("dashboardTeamB", 1L);
+    }
+
+    /**
+     * 쓰기 트랜잭션의 커밋되지 않은 변경은 다른 트랜잭션에서 보이지 않으므로 호출을 거부한다.
+     */
+    @Test
+    void rejectsReadWriteTransaction() {
+        Assertions.assertThatThrownBy(() -> tx.executeWithoutResult(status -> memberDashboardService.dashboard()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+}
@@ -0,0 +1,57 @@
+package study.querydsl.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private MemberExportService memberExportService;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    void exportNdjson() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = memberExportService.export(condition, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertThat(count).isEqualTo(2L);
+        Assertions.assertThat(lines).containsExactly(
+                "{\"username\":\"member3\",\"age\":30}",
+                "{\"username\":\"member4\",\"age\":40}"
+        );
+    }
+
+}
@@ -0,0 +1,55 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRecord;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.stream.IntStream;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class MemberIngestServiceTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private MemberIngestService memberIngestService;
+
+    @Test
+    void ingest() {
+        em.persist(new Team("teamA"));
+
+        long count = memberIngestService.ingest(IntStream.range(0, 2_500)
+                .mapToObj(i -> new MemberRecord("member" + i, i % 100, i % 3 == 0 ? null : "team" + (char) ('A' + i % 3 - 1))));
+
+        Assertions.assertThat(count).isEqualTo(2_500L);
+        // chunk 마다 비웠으므로 영속성 컨텍스트에 남은 엔티티가 없다.
+        Assertions.assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+
+        JPAQueryFactory query = new JPAQueryFactory(em);
+        Assertions.assertThat(query.select(member.count()).from(member).fetchOne()).isEqualTo(2_500L);
+        Assertions.assertThat(query.select(team.count()).from(team).fetchOne()).isEqualTo(2L);
+        Assertions.assertThat(query.select(member.count()).from(member).where(member.team.name.eq("teamA")).fetchOne())
+                .isEqualTo(833L);
+    }
+
+    @Test
+    void rejectsNonPositiveChunkSize() {
+        Assertions.assertThatThrownBy(() -> new MemberIngestService(em, null, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("app.member.ingest.chunk-size");
+    }
+
+}
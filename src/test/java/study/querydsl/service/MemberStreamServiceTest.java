@@ -0,0 +1,94 @@
+package study.querydsl.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 조회는 스트림 전용 스케줄러 스레드에서 실행되므로 테스트 데이터를 커밋하고 직접 정리한다.
+ */
+@SpringBootTest(properties = "app.member.stream.chunk-size=2")
+class MemberStreamServiceTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    @Autowired
+    private MemberStreamService memberStreamService;
+
+    @Autowired
+    private MemberBulkService memberBulkService;
+
+    @BeforeEach
+    void before() {
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("streamTeamA");
+            Team teamB = new Team("streamTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("stream1", 10, teamA));
+            em.persist(new Member("stream2", 20, teamA));
+            em.persist(new Member("stream3", 30, teamB));
+            em.persist(new Member("stream4", 40, teamA));
+            em.persist(new Member("stream5", 50, teamA));
+        });
+    }
+
+    @AfterEach
+    void after() {
+        memberBulkService.delete(member.username.startsWith("stream"));
+        tx.executeWithoutResult(status -> em.createQuery("select t from Team t where t.name like 'streamTeam%'", Team.class)
+                .getResultList()
+                .forEach(em::remove));
+    }
+
+    @Test
+    void streamReadsAllChunks() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("streamTeamA");
+
+        List<MemberDto> members = memberStreamService.stream(condition).collectList().block();
+
+        Assertions.assertThat(members).extracting("username")
+                .containsExactly("stream1", "stream2", "stream4", "stream5");
+    }
+
+    /**
+     * 요청한 만큼만 읽는다. 2건을 요청하면 첫 chunk만 조회하고 끝난다.
+     */
+    @Test
+    void streamReadsOnDemand() {
+        List<String> threads = new ArrayList<>();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("streamTeamA");
+
+        List<MemberDto> members = memberStreamService.stream(condition)
+                .doOnNext(m -> threads.add(Thread.currentThread().getName()))
+                .take(2)
+                .collectList()
+                .block();
+
+        Assertions.assertThat(members).extracting("username").containsExactly("stream1", "stream2");
+        Assertions.assertThat(threads).allMatch(name -> name.startsWith("member-stream"));
+    }
+
+}
@@ -0,0 +1,158 @@
+package study.querydsl.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class CountQueriesTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory query;
+
+    @Autowired
+    private CountQueries countQueries;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Team("teamC"));
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 40, null));
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * ORDER BY, offset/limit, 쓰지 않는 to-one left join(fetch join 포함)을 뺀다.
+     */
+    @Test
+    void stripsOrderAndUnusedToOneJoin() {
+        JPAQuery<Member> source = query
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.age.goe(20))
+                .orderBy(member.username.desc())
+                .offset(1)
+                .limit(2);
+
+        String jpql = countQueries.countQuery(source).toString();
+
+        Assertions.assertThat(jpql).doesNotContain("join", "order by", "fetch");
+        Assertions.assertThat(countQueries.count(source)).isEqualTo(4L);
+    }
+
+    @Test
+    void keepsJoinUsedInWhere() {
+        JPAQuery<Member> source = query
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamA"));
+
+        Assertions.assertThat(countQueries.countQuery(source).toString()).contains("left join");
+        Assertions.assertThat(countQueries.count(source)).isEqualTo(2L);
+    }
+
+    /**
+     * inner join 은 팀 없는 회원을 걸러내므로 쓰지 않아도 남긴다.
+     */
+    @Test
+    void keepsInnerJoin() {
+        JPAQuery<Member> source = query.selectFrom(member).join(member.team, team);
+
+        Assertions.assertThat(countQueries.count(source)).isEqualTo(4L);
+    }
+
+    @Test
+    void distinctOnlyWhenRowsMultiply() {
+        JPAQuery<Team> unused = query.selectFrom(team).distinct().leftJoin(team.members, member).fetchJoin();
+        JPAQuery<Team> used = query.selectFrom(team).distinct().join(team.members, member).where(member.age.goe(20));
+
+        Assertions.assertThat(countQueries.countQuery(unused).toString()).doesNotContain("distinct", "join");
+        Assertions.assertThat(countQueries.count(unused)).isEqualTo(unused.fetch().size());
+        Assertions.assertThat(countQueries.countQuery(used).toString()).contains("count(distinct team)");
+        Assertions.assertThat(countQueries.count(used)).isEqualTo(used.fetch().size());
+    }
+
+    /**
+     * to-many 조인으로 늘어난 행은 distinct 가 아니면 그대로 센다.
+     */
+    @Test
+    void toManyJoinWithoutDistinct() {
+        JPAQuery<Team> source = query.selectFrom(team).leftJoin(team.members, member);
+
+        Assertions.assertThat(countQueries.count(source)).isEqualTo(source.fetch().size());
+    }
+
+    @Test
+    void groupByCountsGroups() {
+        JPAQuery<Double> source = query
+                .select(member.age.avg())
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name)
+                .having(member.age.avg().gt(20));
+
+        Assertions.assertThat(countQueries.count(source)).isEqualTo(source.fetch().size()).isEqualTo(2L);
+        Assertions.assertThatThrownBy(() -> countQueries.countQuery(source))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void thetaJoin() {
+        QMember other = new QMember("other");
+        JPAQuery<Member> source = query.select(member).from(member, other).where(member.age.eq(other.age));
+
+        Assertions.assertThat(countQueries.count(source)).isEqualTo(source.fetch().size());
+    }
+
+    @Test
+    void estimatedCount() {
+        long exact = countQueries.count(query.selectFrom(member));
+
+        Assertions.assertThat(countQueries.estimatedCount(query.selectFrom(member))).isPositive();
+        Assertions.assertThat(countQueries.estimatedCount(query.selectFrom(member).where(member.age.eq(40))))
+                .isEqualTo(2L);
+        Assertions.assertThat(exact).isGreaterThanOrEqualTo(5L);
+
+        // 나이는 겹치므로 distinct 나이 수는 테이블 추정치가 아니라 실제로 센다.
+        long distinctAges = countQueries.count(query.select(member.age).distinct().from(member));
+        Assertions.assertThat(countQueries.estimatedCount(query.select(member.age).distinct().from(member)))
+                .isEqualTo(distinctAges)
+                .isLessThan(exact);
+    }
+
+    @Test
+    void countUpTo() {
+        Assertions.assertThat(countQueries.countUpTo(query.selectFrom(member).where(member.age.goe(20)), 2))
+                .isEqualTo(3L);
+        Assertions.assertThat(countQueries.countUpTo(query.selectFrom(member).where(member.age.goe(40)), 10))
+                .isEqualTo(2L);
+    }
+
+}
@@ -0,0 +1,92 @@
+package study.querydsl.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.repository.TeamStatsRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class DataGeneratorTest {
+
+    private static final int TEAMS = 50;
+    private static final int MEMBERS = 20_000;
+
+    @Autowired
+    private DataGenerator dataGenerator;
+
+    @Autowired
+    private JPAQueryFactory query;
+
+    @Autowired
+    private TeamStatsRepository teamStatsRepository;
+
+    @Test
+    void skewed() {
+        dataGenerator.generate(DataGenerator.Spec.builder()
+                .teams(TEAMS)
+                .members(MEMBERS)
+                .teamNamePrefix("gen")
+                .build());
+
+        List<Long> teamSizes = query
+                .select(member.count())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.startsWith("gen"))
+                .groupBy(team.id)
+                .orderBy(member.count().desc())
+                .fetch();
+        long withoutTeam = query.select(member.count()).from(member)
+                .where(member.username.startsWith("kim").or(member.username.startsWith("lee")), member.team.isNull())
+                .fetchOne();
+        long total = query.select(member.count()).from(member).join(member.team, team)
+                .where(team.name.startsWith("gen")).fetchOne();
+
+        // Zipf: 가장 큰 팀이 중간 크기 팀보다 훨씬 크다.
+        Assertions.assertThat(teamSizes.get(0)).isGreaterThan(teamSizes.get(teamSizes.size() / 2) * 10);
+        Assertions.assertThat(total).isBetween((long) (MEMBERS * 0.95), (long) MEMBERS);
+        Assertions.assertThat(withoutTeam).isPositive();
+
+        List<Integer> ages = query.select(member.age).from(member).join(member.team, team)
+                .where(team.name.startsWith("gen")).fetch();
+        long twentiesToForties = ages.stream().filter(age -> age >= 23 && age <= 41).count();
+        Assertions.assertThat(ages).allMatch(age -> age >= 15 && age <= 80);
+        Assertions.assertThat(twentiesToForties).isGreaterThan(ages.size() / 2);
+
+        List<Tuple> prefixes = List.of("kim", "lee", "lim").stream()
+                .map(prefix -> query.select(member.username.substring(0, 3), member.count()).from(member)
+                        .where(member.username.startsWith(prefix)).groupBy(member.username.substring(0, 3)).fetchOne())
+                .collect(Collectors.toList());
+        Assertions.assertThat(prefixes.get(0).get(member.count()))
+                .isGreaterThan(prefixes.get(1).get(member.count()))
+                .isGreaterThan(prefixes.get(2).get(member.count()) * 5);
+    }
+
+    /**
+     * JDBC로 넣은 회원도 TEAM_STATS에 반영되어 있다.
+     */
+    @Test
+    void teamStatsRecomputed() {
+        dataGenerator.generate(DataGenerator.Spec.uniform(3, 300));
+
+        TeamStatsDto stats = teamStatsRepository.findByTeamName("team1");
+        long members = query.select(member.count()).from(member).where(member.team.name.eq("team1")).fetchOne();
+
+        Assertions.assertThat(stats.getMemberCount()).isEqualTo(members).isPositive();
+        Assertions.assertThat(stats.getMinAge()).isGreaterThanOrEqualTo(1);
+        Assertions.assertThat(stats.getMaxAge()).isLessThanOrEqualTo(100);
+    }
+
+}
@@ -0,0 +1,61 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 쿼리가 실제로 실행한 SQL을 p6spy로 가로채 H2 EXPLAIN 결과를 돌려준다.
+ * H2 실행 계획에서 인덱스를 타면 "PUBLIC.인덱스명: 조건", 전체 스캔이면 "PUBLIC.테이블.tableScan" 이 나온다.
+ *
+ * <pre>
+ * String plan = explainPlans.explain(() -&gt; query.selectFrom(member).where(member.age.eq(10)).fetch());
+ * </pre>
+ */
+@Component
+public class ExplainPlans extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    /**
+     * 리스너는 DataSource를 감쌀 때 필요하므로 JdbcTemplate(DataSource)은 나중에 꺼낸다.
+     */
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+
+    public ExplainPlans(ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(statementInformation.getSqlWithValues());
+        }
+    }
+
+    /**
+     * work가 실행한 SELECT 문 각각의 실행 계획을 합쳐 돌려준다.
+     */
+    public String explain(Runnable work) {
+        List<String> captured = new ArrayList<>();
+        CAPTURED.set(captured);
+        try {
+            work.run();
+        } finally {
+            CAPTURED.remove();
+        }
+        return captured.stream()
+                .filter(sql -> sql.trim().toLowerCase().startsWith("select"))
+                .map(sql -> jdbcTemplate.getObject().queryForObject("explain " + sql, String.class))
+                .collect(Collectors.joining("\n"));
+    }
+
+}
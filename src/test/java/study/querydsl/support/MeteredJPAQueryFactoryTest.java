@@ -0,0 +1,152 @@
+package study.querydsl.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(OutputCaptureExtension.class)
+class MeteredJPAQueryFactoryTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory queryFactory;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private JPAQueryFactory query;
+
+    @BeforeEach
+    void before() {
+        query = new MeteredJPAQueryFactory(em, registry, statementCounter, Duration.ofMinutes(1));
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 10 + i, teamA));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void registeredAsBean() {
+        Assertions.assertThat(queryFactory).isInstanceOf(MeteredJPAQueryFactory.class);
+    }
+
+    @Test
+    void entityQuery() {
+        List<Member> result = query.selectFrom(member).where(member.username.startsWith("member")).fetch();
+
+        Timer timer = registry.get("querydsl.query")
+                .tags("query", "MeteredJPAQueryFactoryTest.entityQuery", "method", "fetch",
+                        "projection", "entity", "outcome", "success")
+                .timer();
+        Assertions.assertThat(timer.count()).isEqualTo(1L);
+        Assertions.assertThat(registry.get("querydsl.query.rows").summary().totalAmount()).isEqualTo(result.size());
+        Assertions.assertThat(registry.get("querydsl.query.statements").summary().totalAmount()).isEqualTo(1.0);
+        Assertions.assertThat(registry.get("querydsl.query.result.processing").tag("projection", "entity").timer()
+                .count()).isEqualTo(1L);
+    }
+
+    /**
+     * 지연 로딩은 쿼리 밖에서 일어나므로 세지 않고, fetchResults 는 count + content 두 문장이다.
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    void dtoQueryInLambda() {
+        Runnable work = () -> query.select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .offset(1)
+                .limit(2)
+                .fetchResults();
+        work.run();
+
+        Assertions.assertThat(registry.get("querydsl.query")
+                .tags("query", "MeteredJPAQueryFactoryTest.dtoQueryInLambda", "method", "fetchResults",
+                        "projection", "dto")
+                .timer().count()).isEqualTo(1L);
+        Assertions.assertThat(registry.get("querydsl.query.rows").summary().totalAmount()).isEqualTo(2.0);
+        Assertions.assertThat(registry.get("querydsl.query.statements").summary().totalAmount()).isEqualTo(2.0);
+    }
+
+    @Test
+    void failedQuery() {
+        Assertions.assertThatThrownBy(() -> query.selectFrom(member).fetchOne())
+                .isInstanceOf(RuntimeException.class);
+
+        Assertions.assertThat(registry.get("querydsl.query").tag("outcome", "error").timer().count()).isEqualTo(1L);
+    }
+
+    @Test
+    void slowQueryLog(CapturedOutput output) {
+        JPAQueryFactory slow = new MeteredJPAQueryFactory(em, registry, statementCounter, Duration.ZERO);
+
+        List<MemberDto> result = slow.select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .where(member.username.eq("member3"), member.age.goe(12))
+                .fetch();
+
+        Assertions.assertThat(result).hasSize(1);
+        Assertions.assertThat(output.getOut())
+                .contains("slow query MeteredJPAQueryFactoryTest.slowQueryLog.fetch")
+                .contains("where member1.username = ?1 and member1.age >= ?2")
+                .contains("bindings: [?1=member3, ?2=12]");
+    }
+
+    @Test
+    void jfrEvent() throws IOException {
+        Path file = Files.createTempFile("querydsl", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("study.querydsl.QuerydslFetch");
+            recording.start();
+            query.selectFrom(member).where(member.username.startsWith("member")).fetch();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        Assertions.assertThat(events)
+                .filteredOn(e -> e.getString("query").equals("MeteredJPAQueryFactoryTest.jfrEvent"))
+                .singleElement()
+                .satisfies(e -> {
+                    Assertions.assertThat(e.getString("method")).isEqualTo("fetch");
+                    Assertions.assertThat(e.getLong("rows")).isEqualTo(5);
+                    Assertions.assertThat(e.getLong("statements")).isEqualTo(1);
+                    Assertions.assertThat(e.getLong("allocated")).isPositive();
+                });
+    }
+
+}
@@ -0,0 +1,56 @@
+package study.querydsl.support;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest(properties = "app.query.fan-out.max-concurrency=2")
+class QueryFanOutTest {
+
+    @Autowired
+    private QueryFanOut fanOut;
+
+    @Test
+    void boundsConcurrencyAndRunsInReadOnlyTransactions() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(fanOut.submit(q -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+            }));
+        }
+
+        for (CompletableFuture<Boolean> future : futures) {
+            Assertions.assertThat(QueryFanOut.join(future)).isTrue();
+        }
+        Assertions.assertThat(maxRunning.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void joinRethrowsQueryException() {
+        CompletableFuture<Object> future = fanOut.submit(q -> {
+            throw new IllegalArgumentException("boom");
+        });
+
+        Assertions.assertThatThrownBy(() -> QueryFanOut.join(future))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("boom");
+    }
+
+}
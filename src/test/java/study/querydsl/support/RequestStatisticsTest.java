@@ -0,0 +1,87 @@
+package study.querydsl.support;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class RequestStatisticsTest {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RequestStatisticsEndpoint endpoint;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+        endpoint.reset();
+    }
+
+    /**
+     * /teams 는 팀과 회원을 fetch join 으로 읽으므로 Team.members 는 쿼리 결과로 읽히고 따로 fetch 되지 않는다.
+     * 테스트 트랜잭션의 영속성 컨텍스트를 요청이 같이 쓰므로 요청마다 비워 처음부터 읽게 한다.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsPerEndpoint() throws Exception {
+        mockMvc.perform(get("/teams")).andExpect(status().isOk());
+        em.clear();
+        mockMvc.perform(get("/teams")).andExpect(status().isOk());
+
+        Map<String, Object> teams = (Map<String, Object>) endpoint.endpoints().get("GET /teams");
+        Assertions.assertThat(teams.get("requests")).isEqualTo(2L);
+        Assertions.assertThat(total(teams, "entities.loaded")).isEqualTo(12);
+        Assertions.assertThat(total(teams, "collections.loaded")).isEqualTo(4);
+        Assertions.assertThat(total(teams, "collections.fetched")).isZero();
+        Assertions.assertThat(total(teams, "queries")).isEqualTo(4);
+        Assertions.assertThat(max(teams, "persistence.context.entities")).isEqualTo(6);
+        Assertions.assertThat((Map<String, Long>) teams.get("collectionLoads"))
+                .containsEntry("study.querydsl.entity.Team.members", 4L);
+
+        mockMvc.perform(get("/actuator/hibernaterequests"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['GET /teams'].requests").value(2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long total(Map<String, Object> report, String metric) {
+        return ((Map<String, Long>) report.get(metric)).get("total");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long max(Map<String, Object> report, String metric) {
+        return ((Map<String, Long>) report.get(metric)).get("max");
+    }
+
+}
@@ -0,0 +1,33 @@
+package study.querydsl.support;
+
+import org.assertj.core.api.Assertions;
+
+import java.util.function.Supplier;
+
+/**
+ * 유스케이스 하나가 실행하는 JDBC 문장 수의 상한을 검증한다. N+1 회귀를 테스트에서 잡기 위한 것.
+ *
+ * <pre>
+ * List&lt;Member&gt; members = StatementAssertions.assertMaxStatements(statementCounter, 1, () -&gt; repository.findWithTeam(condition));
+ * </pre>
+ */
+public final class StatementAssertions {
+
+    private StatementAssertions() {
+    }
+
+    public static <T> T assertMaxStatements(StatementCounter counter, int max, Supplier<T> useCase) {
+        StatementCounter.Counted<T> counted = counter.count(useCase);
+        Assertions.assertThat(counted.getStatements())
+                .as("JDBC statements")
+                .isLessThanOrEqualTo(max);
+        return counted.getResult();
+    }
+
+    public static void assertMaxStatements(StatementCounter counter, int max, Runnable useCase) {
+        Assertions.assertThat(counter.count(useCase))
+                .as("JDBC statements")
+                .isLessThanOrEqualTo(max);
+    }
+
+}